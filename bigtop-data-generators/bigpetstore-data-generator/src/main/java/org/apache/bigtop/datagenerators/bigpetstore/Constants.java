@@ -31,6 +31,42 @@ public class Constants
 		MARKOV;
 	}
 
+	/*
+	 * STEPWISE simulates every usage event of a product category.
+	 * FIRST_PASSAGE samples the exhaustion time directly from a
+	 * drift-diffusion approximation and interpolates the remaining amount.
+	 */
+	public static enum UsageSimulationMode
+	{
+		STEPWISE,
+		FIRST_PASSAGE;
+	}
+
+	/*
+	 * Order of the line items in the transactions output.  GENERATED writes
+	 * them as they come out of the simulation; the other orders run them
+	 * through an external sort.
+	 */
+	public static enum TransactionOutputOrder
+	{
+		GENERATED,
+		TIME,
+		STORE,
+		CUSTOMER;
+	}
+
+	/*
+	 * Starting inventory of each customer.  EMPTY starts every product
+	 * category out of stock, so all customers shop on the first day.
+	 * STEADY_STATE starts each category at a random phase of its
+	 * purchase cycle.
+	 */
+	public static enum InventoryInitialization
+	{
+		EMPTY,
+		STEADY_STATE;
+	}
+
 	public static enum ProductsCollectionSize
 	{
 		SMALL,
@@ -54,9 +90,33 @@ public class Constants
 	public static final double PURCHASE_TRIGGER_TIME_MIN = 1.0;
 
 	public static final double AVERAGE_CUSTOMER_STORE_DISTANCE = 5.0; // miles
+	// probability mass of customer locations dropped by only considering zipcodes near stores
+	public static final double CUSTOMER_LOCATION_CUTOFF_EPSILON = 1e-4;
 
 	public static final PurchasingModelType PURCHASING_MODEL_TYPE = PurchasingModelType.MULTINOMIAL;
 
+	public static final UsageSimulationMode USAGE_SIMULATION_MODE = UsageSimulationMode.STEPWISE;
+
+	// STEADY_STATE starts customers part way through a usage cycle instead of with nothing on hand
+	public static final InventoryInitialization INVENTORY_INITIALIZATION = InventoryInitialization.EMPTY;
+
+	// transactions are emitted in time order one window at a time
+	public static final double SIMULATION_TIME_WINDOW = 1.0; // days
+
+	// how often a checkpointed simulation saves its state
+	public static final double CHECKPOINT_INTERVAL = 7.0; // days
+
+	// keep generated transactions in direct buffers outside of the heap
+	public static final boolean TRANSACTION_BUFFER_OFF_HEAP = false;
+
+	// low bits of a transaction id hold the customer's sequence number, the high bits its id
+	public static final int TRANSACTION_ID_SEQUENCE_BITS = 24;
+
+	// defaults for the driver's --sort-by and --sort-memory options
+	public static final TransactionOutputOrder TRANSACTION_OUTPUT_ORDER = TransactionOutputOrder.GENERATED;
+	// off-heap memory for buffering line items before spilling sorted runs to disk
+	public static final int TRANSACTION_SORT_MEMORY_BUDGET = 64 * 1024 * 1024; // bytes
+
 	public static final List<Pair<Double, Double>> PRODUCT_MSM_FIELD_WEIGHT_GAUSSIANS = ImmutableList.of(Pair.of(0.15, 0.1), Pair.of(0.85, 0.1));
 	public static final double PRODUCT_MSM_FIELD_WEIGHT_LOWERBOUND = 0.05;
 	public static final double PRODUCT_MSM_FIELD_WEIGHT_UPPERBOUND = 0.95;
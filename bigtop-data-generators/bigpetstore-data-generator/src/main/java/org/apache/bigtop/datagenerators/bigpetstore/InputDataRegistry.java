@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.ProductsCollectionSize;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.ProductCatalogLoader;
+import org.apache.bigtop.datagenerators.namegenerator.NameReader;
+import org.apache.bigtop.datagenerators.namegenerator.NameTables;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Process-wide cache of the input data that every simulation in a JVM
+ * reads: the zipcode table, the name sampling tables, and the product
+ * catalogs, whether built in or loaded from catalog files.  Each entry is
+ * loaded lazily on first use and shared by all threads afterwards.
+ *
+ * With the SOFT policy, cached entries are only softly reachable so the
+ * garbage collector may reclaim them under memory pressure; they are
+ * reloaded on the next request.
+ */
+public class InputDataRegistry
+{
+	public static enum CachePolicy
+	{
+		STRONG,
+		SOFT;
+	}
+
+	private static class Entry<T>
+	{
+		private final Callable<T> loader;
+		private T value;
+		private SoftReference<T> softValue;
+
+		public Entry(Callable<T> loader)
+		{
+			this.loader = loader;
+		}
+
+		public synchronized T get(CachePolicy policy) throws Exception
+		{
+			T cached = value;
+			if(cached == null && softValue != null)
+				cached = softValue.get();
+
+			if(cached == null)
+			{
+				cached = loader.call();
+			}
+
+			store(cached, policy);
+
+			return cached;
+		}
+
+		private void store(T cached, CachePolicy policy)
+		{
+			if(policy == CachePolicy.SOFT)
+			{
+				value = null;
+				if(softValue == null || softValue.get() != cached)
+					softValue = new SoftReference<T>(cached);
+			}
+			else
+			{
+				value = cached;
+				softValue = null;
+			}
+		}
+
+		public synchronized void setPolicy(CachePolicy policy)
+		{
+			T cached = value;
+			if(cached == null && softValue != null)
+				cached = softValue.get();
+
+			if(cached == null)
+			{
+				value = null;
+				softValue = null;
+			}
+			else
+			{
+				store(cached, policy);
+			}
+		}
+
+		public synchronized void clear()
+		{
+			value = null;
+			softValue = null;
+		}
+	}
+
+	private static volatile CachePolicy policy = CachePolicy.STRONG;
+
+	private static final Entry<InputData> inputData = new Entry<InputData>(new Callable<InputData>()
+			{
+				public InputData call() throws Exception
+				{
+					return new DataLoader().loadData();
+				}
+			});
+
+	private static final Entry<NameTables> nameTables = new Entry<NameTables>(new Callable<NameTables>()
+			{
+				public NameTables call() throws Exception
+				{
+					return new NameTables(new NameReader().readData());
+				}
+			});
+
+	private static final Map<ProductsCollectionSize, Entry<List<ProductCategory>>> productCategories =
+			new EnumMap<ProductsCollectionSize, Entry<List<ProductCategory>>>(ProductsCollectionSize.class);
+
+	private static final ConcurrentMap<File, Entry<List<ProductCategory>>> catalogFiles =
+			new ConcurrentHashMap<File, Entry<List<ProductCategory>>>();
+
+	static
+	{
+		// NameGenerators built without explicit tables share the cached ones
+		NameTables.setProvider(new Callable<NameTables>()
+				{
+					public NameTables call() throws Exception
+					{
+						return getNameTables();
+					}
+				});
+
+		for(final ProductsCollectionSize collection : ProductsCollectionSize.values())
+		{
+			productCategories.put(collection, new Entry<List<ProductCategory>>(new Callable<List<ProductCategory>>()
+					{
+						public List<ProductCategory> call() throws Exception
+						{
+							return ImmutableList.copyOf(new ProductGenerator(collection).generate());
+						}
+					}));
+		}
+	}
+
+	private InputDataRegistry()
+	{
+	}
+
+	public static CachePolicy getCachePolicy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Changes how cached entries are held, including the ones already loaded.
+	 */
+	public static void setCachePolicy(CachePolicy cachePolicy)
+	{
+		policy = cachePolicy;
+
+		inputData.setPolicy(cachePolicy);
+		nameTables.setPolicy(cachePolicy);
+		for(Entry<List<ProductCategory>> entry : productCategories.values())
+			entry.setPolicy(cachePolicy);
+		for(Entry<List<ProductCategory>> entry : catalogFiles.values())
+			entry.setPolicy(cachePolicy);
+	}
+
+	public static InputData getInputData() throws Exception
+	{
+		return inputData.get(policy);
+	}
+
+	public static NameTables getNameTables() throws Exception
+	{
+		return nameTables.get(policy);
+	}
+
+	public static List<ProductCategory> getProductCategories(ProductsCollectionSize collection) throws Exception
+	{
+		return productCategories.get(collection).get(policy);
+	}
+
+	public static List<ProductCategory> getProductCategories(File catalogFile) throws Exception
+	{
+		final File file = catalogFile.getAbsoluteFile();
+
+		Entry<List<ProductCategory>> entry = catalogFiles.get(file);
+		if(entry == null)
+		{
+			entry = new Entry<List<ProductCategory>>(new Callable<List<ProductCategory>>()
+					{
+						public List<ProductCategory> call() throws Exception
+						{
+							// catalogs in read-only locations are rebuilt on every load
+							ProductCatalogLoader loader = new ProductCatalogLoader(file);
+							boolean writeCache = loader.getCacheFile().getParentFile().canWrite();
+							return ImmutableList.copyOf(loader.load(writeCache));
+						}
+					});
+
+			Entry<List<ProductCategory>> existing = catalogFiles.putIfAbsent(file, entry);
+			if(existing != null)
+				entry = existing;
+		}
+
+		return entry.get(policy);
+	}
+
+	/**
+	 * Drops all cached entries, e.g. to release memory between runs.
+	 */
+	public static void clear()
+	{
+		inputData.clear();
+		nameTables.clear();
+		for(Entry<List<ProductCategory>> entry : productCategories.values())
+			entry.clear();
+		catalogFiles.clear();
+	}
+}
@@ -15,17 +15,19 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModelSampler;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModelSamplerBuilder;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 public class PurchasingModelGenerator
 {
-	final Sampler<? extends PurchasingModel> sampler;
+	final PurchasingModelSampler<?> sampler;
 
 	public PurchasingModelGenerator(Collection<ProductCategory> productCategories, SeedFactory seedFactory) throws Exception
 	{
@@ -33,8 +35,13 @@ public class PurchasingModelGenerator
 		sampler = builder.build();
 	}
 
-	public PurchasingModel generate() throws Exception
+	public PurchasingModel<?> generate() throws Exception
 	{
 		return sampler.sample();
 	}
+
+	public List<PurchasingModel<?>> generate(int count) throws Exception
+	{
+		return new ArrayList<PurchasingModel<?>>(sampler.sample(count));
+	}
 }
@@ -15,29 +15,52 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collection;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.TransactionSampler;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.TransactionSamplerBuilder;
+import org.apache.bigtop.datagenerators.samplers.RestorableSeedFactory;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 public class TransactionGenerator
 {
-	Sampler<Transaction> sampler;
+	RestorableSeedFactory seedFactory;
+	TransactionSampler sampler;
 
-	public TransactionGenerator(Customer customer, PurchasingModel profile,
+	public TransactionGenerator(Customer customer, PurchasingModel<?> profile,
 			Collection<ProductCategory> productCategories, SeedFactory seedFactory) throws Exception
 	{
+		this.seedFactory = new RestorableSeedFactory(seedFactory.getNextSeed());
 		sampler = new TransactionSamplerBuilder(productCategories,
-				customer, profile, seedFactory).build();
+				customer, profile, this.seedFactory).build();
 	}
 
 	public Transaction generate() throws Exception
 	{
 		return sampler.sample();
 	}
+
+	/**
+	 * Saves the customer's state between transactions.  It can only be read
+	 * back into a generator built from the same customer, profile, categories
+	 * and seed.
+	 */
+	public void writeState(DataOutput output) throws IOException
+	{
+		seedFactory.writeState(output);
+		sampler.writeState(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		seedFactory.readState(input);
+		sampler.readState(input);
+	}
 }
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Discrete-event engine that merges the transaction timelines of many
+ * customers into one stream in non-decreasing time order.
+ *
+ * Each active customer has exactly one pending transaction in a priority
+ * queue keyed by time.  Emitting a transaction draws that customer's next
+ * one; customers whose next transaction falls after the end of the
+ * simulation are parked with that transaction, so the simulation can later
+ * be extended.  Memory is proportional to the number of customers, not to
+ * the number of transactions.  Ties are broken by the order in which
+ * customers were added, so the stream is deterministic.
+ */
+public class TransactionScheduler
+{
+	private static class Event
+	{
+		final TransactionGenerator generator;
+		final long order;
+		Transaction pending;
+
+		Event(TransactionGenerator generator, long order, Transaction pending)
+		{
+			this.generator = generator;
+			this.order = order;
+			this.pending = pending;
+		}
+	}
+
+	private static class CustomerOrder implements Comparator<Event>
+	{
+		public int compare(Event a, Event b)
+		{
+			return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+		}
+	}
+
+	private static class EventOrder implements Comparator<Event>
+	{
+		public int compare(Event a, Event b)
+		{
+			int cmp = Double.compare(a.pending.getDateTime(), b.pending.getDateTime());
+			if(cmp != 0)
+				return cmp;
+
+			return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+		}
+	}
+
+	private double simulationTime;
+	private final PriorityQueue<Event> events;
+	private final List<Event> parked;
+	private long customerCount;
+	private double currentTime;
+
+	public TransactionScheduler(double simulationTime)
+	{
+		this(simulationTime, 0.0);
+	}
+
+	/**
+	 * Creates a scheduler whose clock already stands at the given time, e.g.
+	 * when resuming a checkpointed simulation.
+	 */
+	public TransactionScheduler(double simulationTime, double currentTime)
+	{
+		this.simulationTime = simulationTime;
+		this.events = new PriorityQueue<Event>(11, new EventOrder());
+		this.parked = Lists.newArrayList();
+		this.customerCount = 0;
+		this.currentTime = currentTime;
+	}
+
+	public void addCustomer(TransactionGenerator generator) throws Exception
+	{
+		addCustomer(generator, generator.generate());
+	}
+
+	/**
+	 * Adds a customer whose next transaction was already drawn.
+	 */
+	public void addCustomer(TransactionGenerator generator, Transaction pending)
+	{
+		long order = customerCount++;
+
+		schedule(new Event(generator, order, pending));
+	}
+
+	private void schedule(Event event)
+	{
+		if(event.pending.getDateTime() <= simulationTime)
+			events.add(event);
+		else
+			parked.add(event);
+	}
+
+	/**
+	 * Moves the end of the simulation to a later time.  Customers parked
+	 * beyond the old end rejoin with the transaction they were holding.
+	 */
+	public void extend(double simulationTime)
+	{
+		if(simulationTime < this.simulationTime)
+			throw new IllegalArgumentException("Cannot shorten simulation from " + this.simulationTime
+					+ " to " + simulationTime);
+
+		this.simulationTime = simulationTime;
+
+		List<Event> waiting = Lists.newArrayList(parked);
+		parked.clear();
+		for(Event event : waiting)
+			schedule(event);
+	}
+
+	public boolean hasNext()
+	{
+		return !events.isEmpty();
+	}
+
+	/**
+	 * @return time of the next transaction or infinity if there is none
+	 */
+	public double peekTime()
+	{
+		if(events.isEmpty())
+			return Double.POSITIVE_INFINITY;
+
+		return events.peek().pending.getDateTime();
+	}
+
+	public Transaction next() throws Exception
+	{
+		Event event = events.poll();
+		Transaction transaction = event.pending;
+		currentTime = transaction.getDateTime();
+
+		event.pending = event.generator.generate();
+		schedule(event);
+
+		return transaction;
+	}
+
+	/**
+	 * Emits every remaining transaction up to and including the end of the
+	 * window, in time order, and advances the clock to the window end.
+	 */
+	public List<Transaction> advance(double windowEnd) throws Exception
+	{
+		List<Transaction> transactions = Lists.newArrayList();
+		advance(windowEnd, transactions);
+
+		return transactions;
+	}
+
+	/**
+	 * Like {@link #advance(double)} but appends the transactions to the
+	 * given collection as they are drawn.
+	 */
+	public void advance(double windowEnd, Collection<? super Transaction> transactions) throws Exception
+	{
+		while(peekTime() <= windowEnd)
+		{
+			transactions.add(next());
+		}
+
+		currentTime = Math.max(currentTime, Math.min(windowEnd, simulationTime));
+	}
+
+	/**
+	 * @return the transaction each customer holds, in the order the customers were added
+	 */
+	public List<Transaction> getPendingTransactions()
+	{
+		List<Event> all = Lists.newArrayList(events);
+		all.addAll(parked);
+		Collections.sort(all, new CustomerOrder());
+
+		List<Transaction> pending = Lists.newArrayListWithCapacity(all.size());
+		for(Event event : all)
+			pending.add(event.pending);
+
+		return pending;
+	}
+
+	public double getCurrentTime()
+	{
+		return currentTime;
+	}
+
+	public double getSimulationTime()
+	{
+		return simulationTime;
+	}
+
+	public int getActiveCustomers()
+	{
+		return events.size();
+	}
+}
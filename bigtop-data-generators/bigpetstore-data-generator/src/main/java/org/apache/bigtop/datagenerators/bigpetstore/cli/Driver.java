@@ -15,18 +15,28 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.cli;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import org.apache.bigtop.datagenerators.bigpetstore.DataLoader;
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.TransactionOutputOrder;
+import org.apache.bigtop.datagenerators.bigpetstore.InputDataRegistry;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
-import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.TransactionBuffer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
@@ -40,7 +50,16 @@ public class Driver
 	int nPurchasingModels;
 	double simulationTime;
 	long seed;
+	int shard = 0;
+	int nShards = 1;
 	File outputDir;
+	File checkpointFile;
+	File resumeFile;
+	File catalogFile;
+	boolean merge = false;
+	List<File> shardDirs;
+	TransactionOutputOrder outputOrder = Constants.TRANSACTION_OUTPUT_ORDER;
+	int sortMemory = Constants.TRANSACTION_SORT_MEMORY_BUDGET;
 
 	static final int NPARAMS = 6;
 
@@ -48,87 +67,285 @@ public class Driver
 	{
 		String usage = "BigPetStore Data Generator\n" +
 				"\n" +
-				"Usage: java -jar bps-data-generator-v0.2.java outputDir nStores nCustomers nPurchasingModels simulationLength seed\n" +
+				"Usage: java -jar bps-data-generator-v0.2.java [--shard i/N] [--checkpoint file] [--catalog file] [--sort-by key] [--sort-memory mb] outputDir nStores nCustomers nPurchasingModels simulationLength seed\n" +
+				"       java -jar bps-data-generator-v0.2.java --resume file [--checkpoint file] [--sort-by key] [--sort-memory mb] outputDir [simulationLength]\n" +
+				"       java -jar bps-data-generator-v0.2.java --merge [--sort-by key] outputDir shardDir...\n" +
 				"\n" +
 				"outputDir - (string) directory to write files\n" +
 				"nStores - (int) number of stores to generate\n" +
 				"nCustomers - (int) number of customers to generate\n" +
 				"nPurchasingModels - (int) number of purchasing models to generate\n" +
 				"simulationLength - (float) number of days to simulate\n" +
-				"seed - (long) seed for RNG. If not given, one is reandomly generated.\n";
+				"seed - (long) seed for RNG. If not given, one is reandomly generated.\n" +
+				"--shard i/N - generate only the i-th of N disjoint slices of the customers and their\n" +
+				"              transactions. Run every shard with the same arguments and seed.\n" +
+				"--merge - combine the output directories of shards 0 to N - 1, in order, into the\n" +
+				"          files a single run writes. Pass the --sort-by the shards were run with.\n" +
+				"--checkpoint file - periodically save the simulation state to the given file\n" +
+				"--catalog file - read the product categories from the given JSON catalog file. The\n" +
+				"                 built catalog is cached in file.cache for later runs.\n" +
+				"--resume file - continue the simulation saved in the given file. If simulationLength is\n" +
+				"                longer than the saved run, only the additional days are generated.\n" +
+				"                Otherwise the run appends to its output; pass the same --sort-by.\n" +
+				"--sort-by key - write the transaction line items sorted by time, store or customer\n" +
+				"                instead of in the order they are generated\n" +
+				"--sort-memory mb - memory for buffering line items before sorted runs are spilled to\n" +
+				"                   outputDir (default " + (Constants.TRANSACTION_SORT_MEMORY_BUDGET >> 20) + ")\n";
 
 		System.out.println(usage);
 	}
 
-	public void parseArgs(String[] args)
+	private String[] parseOptions(String[] args)
 	{
-		if(args.length != NPARAMS && args.length != (NPARAMS - 1))
+		List<String> remaining = new ArrayList<String>();
+		for(int i = 0; i < args.length; i++)
+		{
+			if(!args[i].startsWith("--"))
+			{
+				remaining.add(args[i]);
+				continue;
+			}
+
+			String option = args[i];
+			if(option.equals("--merge"))
+			{
+				merge = true;
+				continue;
+			}
+
+			if(i + 1 == args.length)
+			{
+				System.err.println("Missing value for " + option + ".\n");
+				printUsage();
+				System.exit(1);
+			}
+			String value = args[++i];
+
+			if(option.equals("--checkpoint"))
+				checkpointFile = new File(value);
+			else if(option.equals("--catalog"))
+				catalogFile = new File(value);
+			else if(option.equals("--resume"))
+				resumeFile = new File(value);
+			else if(option.equals("--shard"))
+				parseShard(value);
+			else if(option.equals("--sort-by"))
+				parseSortBy(value);
+			else if(option.equals("--sort-memory"))
+				parseSortMemory(value);
+			else
+			{
+				System.err.println("Unknown option " + option + ".\n");
+				printUsage();
+				System.exit(1);
+			}
+		}
+
+		return remaining.toArray(new String[remaining.size()]);
+	}
+
+	private void parseShard(String arg)
+	{
+		try
 		{
+			String[] parts = arg.split("/");
+			shard = Integer.parseInt(parts[0]);
+			nShards = Integer.parseInt(parts[1]);
+		}
+		catch(Exception e)
+		{
+			System.err.println("Unable to parse shard. Expected i/N.\n");
 			printUsage();
 			System.exit(1);
 		}
 
-		int i = -1;
+		if(nShards < 1 || shard < 0 || shard >= nShards)
+		{
+			System.err.println("Shard index must be between 0 and N - 1.\n");
+			printUsage();
+			System.exit(1);
+		}
+	}
+
+	private void parseSortBy(String arg)
+	{
+		try
+		{
+			outputOrder = TransactionOutputOrder.valueOf(arg.toUpperCase());
+		}
+		catch(IllegalArgumentException e)
+		{
+			System.err.println("Unable to parse sort key '" + arg + "'. Expected time, store or customer.\n");
+			printUsage();
+			System.exit(1);
+		}
+	}
+
+	private void parseSortMemory(String arg)
+	{
+		int megabytes = 0;
+		try
+		{
+			megabytes = Integer.parseInt(arg);
+		}
+		catch(Exception e)
+		{
+			System.err.println("Unable to parse '" + arg + "' as an integer for the sort memory.\n");
+			printUsage();
+			System.exit(1);
+		}
+
+		// the buffer is a single direct ByteBuffer, addressed with an int
+		if(megabytes < 1 || megabytes >= 2048)
+		{
+			System.err.println("Sort memory must be between 1 and 2047 megabytes.\n");
+			printUsage();
+			System.exit(1);
+		}
+
+		sortMemory = megabytes << 20;
+	}
 
-		outputDir = new File(args[++i]);
+	private void parseOutputDir(String arg)
+	{
+		outputDir = new File(arg);
 		if(! outputDir.exists())
 		{
-			System.err.println("Given path (" + args[i] + ") does not exist.\n");
+			System.err.println("Given path (" + arg + ") does not exist.\n");
 			printUsage();
 			System.exit(1);
 		}
 
 		if(! outputDir.isDirectory())
 		{
-			System.err.println("Given path (" + args[i] + ") is not a directory.\n");
+			System.err.println("Given path (" + arg + ") is not a directory.\n");
 			printUsage();
 			System.exit(1);
 		}
+	}
 
+	private void parseSimulationLength(String arg)
+	{
 		try
 		{
-			nStores = Integer.parseInt(args[++i]);
+			simulationTime = Double.parseDouble(arg);
 		}
 		catch(Exception e)
 		{
-			System.err.println("Unable to parse '" + args[i] + "' as an integer for nStores.\n");
+			System.err.println("Unable to parse '" + arg + "' as a float for simulationLength.\n");
+			printUsage();
+			System.exit(1);
+		}
+	}
+
+	private void parseResumeArgs(String[] args)
+	{
+		if(args.length != 1 && args.length != 2)
+		{
+			printUsage();
+			System.exit(1);
+		}
+
+		parseOutputDir(args[0]);
+
+		simulationTime = -1.0;
+		if(args.length == 2)
+			parseSimulationLength(args[1]);
+	}
+
+	private void parseMergeArgs(String[] args)
+	{
+		if(args.length < 2)
+		{
+			printUsage();
+			System.exit(1);
+		}
+
+		parseOutputDir(args[0]);
+
+		shardDirs = new ArrayList<File>();
+		for(int i = 1; i < args.length; i++)
+		{
+			File shardDir = new File(args[i]);
+			if(! shardDir.isDirectory())
+			{
+				System.err.println("Given shard directory (" + args[i] + ") is not a directory.\n");
+				printUsage();
+				System.exit(1);
+			}
+
+			shardDirs.add(shardDir);
+		}
+	}
+
+	public void parseArgs(String[] args)
+	{
+		args = parseOptions(args);
+
+		if(merge)
+		{
+			parseMergeArgs(args);
+			return;
+		}
+
+		if(catalogFile != null && ! catalogFile.isFile())
+		{
+			System.err.println("Given catalog (" + catalogFile + ") does not exist.\n");
+			printUsage();
+			System.exit(1);
+		}
+
+		if(resumeFile != null)
+		{
+			parseResumeArgs(args);
+			return;
+		}
+
+		if(args.length != NPARAMS && args.length != (NPARAMS - 1))
+		{
 			printUsage();
 			System.exit(1);
 		}
 
+		int i = -1;
+
+		parseOutputDir(args[++i]);
+
 		try
 		{
-			nCustomers = Integer.parseInt(args[++i]);
+			nStores = Integer.parseInt(args[++i]);
 		}
 		catch(Exception e)
 		{
-			System.err.println("Unable to parse '" + args[i] + "' as an integer for nCustomers.\n");
+			System.err.println("Unable to parse '" + args[i] + "' as an integer for nStores.\n");
 			printUsage();
 			System.exit(1);
 		}
 
 		try
 		{
-			nPurchasingModels = Integer.parseInt(args[++i]);
+			nCustomers = Integer.parseInt(args[++i]);
 		}
 		catch(Exception e)
 		{
-			System.err.println("Unable to parse '" + args[i] + "' as an integer for nPurchasingModels.\n");
+			System.err.println("Unable to parse '" + args[i] + "' as an integer for nCustomers.\n");
 			printUsage();
 			System.exit(1);
 		}
 
 		try
 		{
-			simulationTime = Double.parseDouble(args[++i]);
+			nPurchasingModels = Integer.parseInt(args[++i]);
 		}
 		catch(Exception e)
 		{
-			System.err.println("Unable to parse '" + args[i] + "' as a float for simulationLength.\n");
+			System.err.println("Unable to parse '" + args[i] + "' as an integer for nPurchasingModels.\n");
 			printUsage();
 			System.exit(1);
 		}
 
+		parseSimulationLength(args[++i]);
+
 		try
 		{
 			seed = Long.parseLong(args[++i]);
@@ -141,35 +358,160 @@ public class Driver
 		}
 	}
 
-	private void writeTransactions(Collection<Transaction> transactions) throws Exception
+	private long transactionSortKey(TransactionBuffer transactions, int index)
 	{
-		File outputFile = new File(outputDir.toString() + File.separator + "transactions.txt");
-		System.out.println(outputFile.toString());
-		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile));
+		switch(outputOrder)
+		{
+		case STORE:
+			return transactions.getStoreId(index);
+		case CUSTOMER:
+			return transactions.getCustomerId(index);
+		default:
+			return ExternalSorter.sortableKey(transactions.getDateTime(index));
+		}
+	}
+
+	private String transactionRecord(TransactionBuffer transactions, int index, int item)
+	{
+		Store store = transactions.getStore(index);
+		Customer customer = transactions.getCustomer(index);
+
+		String record = transactions.getId(index) + ",";
+		record += transactions.getDateTime(index) + ",";
+		record += store.getId() + ",";
+		record += store.getLocation().getZipcode() + ",";
+		record += store.getLocation().getCity() + ",";
+		record += store.getLocation().getState() + ",";
+		record += customer.getId() + ",";
+		Pair<String, String> name = customer.getName();
+		record += name.getLeft() + " " + name.getRight() + ",";
+		record += customer.getLocation().getZipcode() + ",";
+		record += customer.getLocation().getCity() + ",";
+		record += customer.getLocation().getState() + ",";
+		record += transactions.getItem(item).toString() + "\n";
+
+		return record;
+	}
 
-		for(Transaction transaction : transactions)
+	private File getTransactionsFile()
+	{
+		return new File(outputDir.toString() + File.separator + "transactions.txt");
+	}
+
+	/*
+	 * Line items to be sorted are spooled with their keys until the run is
+	 * complete, so a resumed run can append to them.
+	 */
+	private File getSpoolFile()
+	{
+		return new File(outputDir.toString() + File.separator + "transactions.spool");
+	}
+
+	/**
+	 * Appends line items to transactions.txt or, when they are written
+	 * sorted, to the spool file, starting at the given offset.  Anything
+	 * after the offset was written after the last checkpoint and is dropped.
+	 */
+	private class TransactionWriter implements TransactionSink
+	{
+		private final DataOutputStream output;
+		private long offset;
+
+		public TransactionWriter(File file, long offset) throws IOException
 		{
-			for(Product product : transaction.getProducts())
+			RandomAccessFile existing = new RandomAccessFile(file, "rw");
+			try
 			{
-				String record = transaction.getId() + ",";
-				record += transaction.getDateTime() + ",";
-				record += transaction.getStore().getId() + ",";
-				record += transaction.getStore().getLocation().getZipcode() + ",";
-				record += transaction.getStore().getLocation().getCity() + ",";
-				record += transaction.getStore().getLocation().getState() + ",";
-				record += transaction.getCustomer().getId() + ",";
-				Pair<String, String> name = transaction.getCustomer().getName();
-				record += name.getLeft() + " " + name.getRight() + ",";
-				record += transaction.getCustomer().getLocation().getZipcode() + ",";
-				record += transaction.getCustomer().getLocation().getCity() + ",";
-				record += transaction.getCustomer().getLocation().getState() + ",";
-				record += product.toString() + "\n";
+				if(existing.length() < offset)
+					throw new IOException("Output " + file + " is shorter than the checkpoint expects (" +
+							existing.length() + " < " + offset + " bytes)");
 
-				outputStream.write(record.getBytes());
+				existing.setLength(offset);
+			}
+			finally
+			{
+				existing.close();
 			}
+
+			this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			this.offset = offset;
 		}
 
-		outputStream.close();
+		public long write(TransactionBuffer transactions) throws IOException
+		{
+			for(int i = 0; i < transactions.size(); i++)
+			{
+				for(int item = transactions.getFirstItem(i); item < transactions.getLastItem(i); item++)
+				{
+					byte[] record = transactionRecord(transactions, i, item).getBytes();
+					if(outputOrder == TransactionOutputOrder.GENERATED)
+					{
+						output.write(record);
+						offset += record.length;
+					}
+					else
+					{
+						output.writeLong(transactionSortKey(transactions, i));
+						output.writeInt(record.length);
+						output.write(record);
+						offset += 12 + record.length;
+					}
+				}
+			}
+
+			output.flush();
+			return offset;
+		}
+
+		public void close() throws IOException
+		{
+			output.close();
+		}
+	}
+
+	private void sortTransactions() throws Exception
+	{
+		File spoolFile = getSpoolFile();
+		File outputFile = getTransactionsFile();
+		System.out.println(outputFile.toString());
+
+		ExternalSorter sorter = new ExternalSorter(sortMemory, outputDir);
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spoolFile)));
+		try
+		{
+			while(true)
+			{
+				long key;
+				try
+				{
+					key = input.readLong();
+				}
+				catch(EOFException e)
+				{
+					break;
+				}
+
+				byte[] record = new byte[input.readInt()];
+				input.readFully(record);
+				sorter.add(key, record);
+			}
+		}
+		finally
+		{
+			input.close();
+		}
+
+		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile));
+		try
+		{
+			sorter.writeSorted(outputStream);
+		}
+		finally
+		{
+			outputStream.close();
+		}
+
+		spoolFile.delete();
 	}
 
 	private void writeCustomers(Collection<Customer> customers) throws Exception
@@ -233,7 +575,7 @@ public class Driver
 		outputStream.close();
 	}
 
-	private void writePurchasingProfiles(List<ProductCategory> productCategories, List<PurchasingModel> profiles) throws Exception
+	private void writePurchasingProfiles(List<ProductCategory> productCategories, List<PurchasingModel<?>> profiles) throws Exception
 	{
 		File outputFile = new File(outputDir.toString() + File.separator + "purchasing_profiles.txt");
 		System.out.println(outputFile.toString());
@@ -242,7 +584,7 @@ public class Driver
 		for(ProductCategory category : productCategories)
 		{
 			int i = 0;
-			for(PurchasingModel model : profiles)
+			for(PurchasingModel<?> model : profiles)
 			{
 				Object productModel = model.getProfile(category.getCategoryLabel());
 				String record = productModel.toString();
@@ -258,28 +600,85 @@ public class Driver
 
 	public Simulation buildSimulation(InputData inputData)
 	{
-		return new Simulation(inputData, nStores, nCustomers, nPurchasingModels, simulationTime, seed);
+		Simulation simulation = new Simulation(inputData, nStores, nCustomers, nPurchasingModels, simulationTime, seed,
+				shard, nShards);
+		if(catalogFile != null)
+			simulation.setProductCatalog(catalogFile);
+
+		return simulation;
 	}
 
-	private void run(InputData inputData) throws Exception
+	protected InputData loadInputData() throws Exception
 	{
-		Simulation simulation = buildSimulation(inputData);
+		return InputDataRegistry.getInputData();
+	}
+
+	private Simulation restoreSimulation() throws Exception
+	{
+		Simulation simulation = Simulation.restore(resumeFile, loadInputData());
+
+		shard = simulation.getShard();
+		nShards = simulation.getNShards();
 
-		simulation.simulate();
+		if(simulationTime > simulation.getSimulationTime())
+			simulation.extend(simulationTime);
+		simulationTime = simulation.getSimulationTime();
 
-		writeStores(simulation.getStores());
+		return simulation;
+	}
+
+	private void run(Simulation simulation) throws Exception
+	{
+		if(checkpointFile != null)
+			simulation.setCheckpoint(checkpointFile, Constants.CHECKPOINT_INTERVAL);
+
+		File transactionsFile = getTransactionsFile();
+		if(outputOrder != TransactionOutputOrder.GENERATED)
+			transactionsFile = getSpoolFile();
+
+		// a resumed run continues the output where its checkpoint left it
+		TransactionWriter writer = new TransactionWriter(transactionsFile, simulation.getOutputOffset());
+		simulation.setTransactionSink(writer);
+		try
+		{
+			simulation.simulate();
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		// the shared tables are identical on every shard
+		if(shard == 0)
+		{
+			writeStores(simulation.getStores());
+			writeProducts(simulation.getProductCategories());
+			writePurchasingProfiles(simulation.getProductCategories(), simulation.getPurchasingProfiles());
+		}
 		writeCustomers(simulation.getCustomers());
-		writeProducts(simulation.getProductCategories());
-		writePurchasingProfiles(simulation.getProductCategories(), simulation.getPurchasingProfiles());
-		writeTransactions(simulation.getTransactions());
+		if(outputOrder != TransactionOutputOrder.GENERATED)
+			sortTransactions();
+		else
+			System.out.println(getTransactionsFile().toString());
 	}
+
 	public void run(String[] args) throws Exception
 	{
 		parseArgs(args);
 
-		InputData inputData = (new DataLoader()).loadData();
+		if(merge)
+		{
+			new ShardMerger(outputOrder).merge(shardDirs, outputDir);
+			return;
+		}
+
+		if(resumeFile != null)
+		{
+			run(restoreSimulation());
+			return;
+		}
 
-		run(inputData);
+		run(buildSimulation(loadInputData()));
 	}
 
 	public static void main(String[] args) throws Exception
@@ -303,6 +702,16 @@ public class Driver
 		return seed;
 	}
 
+	public int getShard()
+	{
+		return shard;
+	}
+
+	public int getNShards()
+	{
+		return nShards;
+	}
+
 	public int getNStores()
 	{
 		return nStores;
@@ -312,4 +721,14 @@ public class Driver
 	{
 		return outputDir;
 	}
+
+	public TransactionOutputOrder getOutputOrder()
+	{
+		return outputOrder;
+	}
+
+	public int getSortMemory()
+	{
+		return sortMemory;
+	}
 }
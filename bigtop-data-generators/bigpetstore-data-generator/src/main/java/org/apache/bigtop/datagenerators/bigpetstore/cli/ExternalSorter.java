@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Sorts encoded records by a long key with bounded memory.
+ *
+ * Records are buffered off-heap up to the memory budget.  When the buffer
+ * fills up, its records are sorted and spilled to a run file on local disk.
+ * The runs are finally k-way merged into the output.  At most maxFanIn
+ * runs are open at once; with more runs, consecutive groups are first
+ * merged into longer runs until few enough are left.  The sort is stable:
+ * records with equal keys come out in the order they were added.
+ */
+public class ExternalSorter
+{
+	private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+	// keeps the open run files well below common file descriptor limits
+	public static final int DEFAULT_MAX_FAN_IN = 64;
+
+	private final File tempDir;
+	private final ByteBuffer buffer;
+	private final int maxFanIn;
+
+	private long[] keys;
+	private int[] offsets;
+	private int[] lengths;
+	private int count;
+
+	private final List<File> runs;
+
+	public ExternalSorter(int memoryBudget, File tempDir)
+	{
+		this(memoryBudget, tempDir, DEFAULT_MAX_FAN_IN);
+	}
+
+	public ExternalSorter(int memoryBudget, File tempDir, int maxFanIn)
+	{
+		if(maxFanIn < 2)
+			throw new IllegalArgumentException("Merge fan-in must be at least 2 but was " + maxFanIn);
+
+		this.tempDir = tempDir;
+		this.buffer = ByteBuffer.allocateDirect(memoryBudget);
+		this.maxFanIn = maxFanIn;
+
+		keys = new long[INITIAL_INDEX_CAPACITY];
+		offsets = new int[INITIAL_INDEX_CAPACITY];
+		lengths = new int[INITIAL_INDEX_CAPACITY];
+		count = 0;
+
+		runs = Lists.newArrayList();
+	}
+
+	/**
+	 * Maps a double to a long with the same ordering.
+	 */
+	public static long sortableKey(double value)
+	{
+		long bits = Double.doubleToLongBits(value);
+
+		return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+	}
+
+	public void add(long key, byte[] record) throws IOException
+	{
+		if(record.length > buffer.capacity())
+			throw new IllegalArgumentException("Record of " + record.length +
+					" bytes exceeds the memory budget of " + buffer.capacity() + " bytes");
+
+		if(record.length > buffer.remaining())
+			spill();
+
+		if(count == keys.length)
+		{
+			keys = Arrays.copyOf(keys, 2 * count);
+			offsets = Arrays.copyOf(offsets, 2 * count);
+			lengths = Arrays.copyOf(lengths, 2 * count);
+		}
+
+		keys[count] = key;
+		offsets[count] = buffer.position();
+		lengths[count] = record.length;
+		count++;
+
+		buffer.put(record);
+	}
+
+	public int getSpilledRuns()
+	{
+		return runs.size();
+	}
+
+	/*
+	 * Stable merge sort of the buffered records' indices by key.
+	 */
+	private int[] sortedOrder()
+	{
+		int[] order = new int[count];
+		for(int i = 0; i < count; i++)
+			order[i] = i;
+
+		int[] scratch = new int[count];
+		for(int width = 1; width < count; width *= 2)
+		{
+			for(int low = 0; low < count; low += 2 * width)
+			{
+				int mid = Math.min(low + width, count);
+				int high = Math.min(low + 2 * width, count);
+
+				int i = low;
+				int j = mid;
+				int k = low;
+				while(i < mid && j < high)
+					scratch[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+				while(i < mid)
+					scratch[k++] = order[i++];
+				while(j < high)
+					scratch[k++] = order[j++];
+			}
+
+			int[] swap = order;
+			order = scratch;
+			scratch = swap;
+		}
+
+		return order;
+	}
+
+	private void writeBuffered(DataOutputStream out, boolean withKeys) throws IOException
+	{
+		byte[] record = new byte[0];
+		for(int idx : sortedOrder())
+		{
+			if(record.length < lengths[idx])
+				record = new byte[lengths[idx]];
+
+			ByteBuffer view = buffer.duplicate();
+			view.position(offsets[idx]);
+			view.get(record, 0, lengths[idx]);
+
+			if(withKeys)
+			{
+				out.writeLong(keys[idx]);
+				out.writeInt(lengths[idx]);
+			}
+			out.write(record, 0, lengths[idx]);
+		}
+
+		buffer.clear();
+		count = 0;
+	}
+
+	private File createRun() throws IOException
+	{
+		File run = File.createTempFile("sort-run-", ".bin", tempDir);
+		run.deleteOnExit();
+
+		return run;
+	}
+
+	private void spill() throws IOException
+	{
+		File run = createRun();
+		runs.add(run);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+		try
+		{
+			writeBuffered(out, true);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private static class RunReader
+	{
+		final int run;
+		final DataInputStream in;
+		long key;
+		byte[] record;
+
+		RunReader(int run, File file) throws IOException
+		{
+			this.run = run;
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		}
+
+		boolean advance() throws IOException
+		{
+			try
+			{
+				key = in.readLong();
+			}
+			catch(EOFException e)
+			{
+				in.close();
+				return false;
+			}
+
+			record = new byte[in.readInt()];
+			in.readFully(record);
+
+			return true;
+		}
+	}
+
+	// ties go to the earlier run, which keeps the sort stable
+	private static final Comparator<RunReader> RUN_ORDER = new Comparator<RunReader>()
+			{
+				public int compare(RunReader a, RunReader b)
+				{
+					if(a.key != b.key)
+						return a.key < b.key ? -1 : 1;
+
+					return a.run - b.run;
+				}
+			};
+
+	/*
+	 * Merges the given runs, in order, and deletes them.
+	 */
+	private static void merge(List<File> group, DataOutputStream out, boolean withKeys) throws IOException
+	{
+		List<RunReader> opened = Lists.newArrayList();
+		PriorityQueue<RunReader> readers = new PriorityQueue<RunReader>(group.size(), RUN_ORDER);
+		try
+		{
+			for(int i = 0; i < group.size(); i++)
+			{
+				RunReader reader = new RunReader(i, group.get(i));
+				opened.add(reader);
+				if(reader.advance())
+					readers.add(reader);
+			}
+
+			while(!readers.isEmpty())
+			{
+				RunReader reader = readers.poll();
+				if(withKeys)
+				{
+					out.writeLong(reader.key);
+					out.writeInt(reader.record.length);
+				}
+				out.write(reader.record);
+				if(reader.advance())
+					readers.add(reader);
+			}
+		}
+		finally
+		{
+			for(RunReader reader : opened)
+				reader.in.close();
+		}
+
+		for(File run : group)
+			run.delete();
+	}
+
+	/*
+	 * Replaces every group of maxFanIn consecutive runs by their merge.
+	 * Merged runs keep the position of their group, so ties still go to
+	 * the records added first.
+	 */
+	private void mergePass() throws IOException
+	{
+		List<File> merged = Lists.newArrayList();
+		for(int start = 0; start < runs.size(); start += maxFanIn)
+		{
+			List<File> group = runs.subList(start, Math.min(start + maxFanIn, runs.size()));
+			if(group.size() == 1)
+			{
+				merged.add(group.get(0));
+				continue;
+			}
+
+			File run = createRun();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+			try
+			{
+				merge(group, out, true);
+			}
+			finally
+			{
+				out.close();
+			}
+			merged.add(run);
+		}
+
+		runs.clear();
+		runs.addAll(merged);
+	}
+
+	/**
+	 * Writes all records in key order and removes the spilled runs.  The
+	 * sorter is empty afterwards.
+	 */
+	public void writeSorted(OutputStream output) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(output);
+
+		if(runs.isEmpty())
+		{
+			writeBuffered(out, false);
+			out.flush();
+			return;
+		}
+
+		if(count > 0)
+			spill();
+
+		while(runs.size() > maxFanIn)
+			mergePass();
+
+		merge(runs, out, false);
+		out.flush();
+
+		runs.clear();
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.TransactionOutputOrder;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Merges the output directories of the shards of a run into exactly the
+ * files a single run with the same arguments writes.
+ *
+ * Shards hold contiguous ranges of customers and a single run breaks ties
+ * between customers by their order, so the lower shard's line item comes
+ * first whenever the single run's keys are equal.  Customer order is then a
+ * plain concatenation, and the other orders are a k-way merge on the key
+ * with ties going to the lower shard.  The shared tables are only written
+ * by shard 0 and are copied from there.
+ */
+public class ShardMerger
+{
+	private static final String[] SHARED_FILES = { "stores.txt", "products.txt", "purchasing_profiles.txt" };
+
+	private final TransactionOutputOrder outputOrder;
+
+	public ShardMerger(TransactionOutputOrder outputOrder)
+	{
+		this.outputOrder = outputOrder;
+	}
+
+	/**
+	 * @param shardDirs output directories of shards 0 to N - 1, in order
+	 */
+	public void merge(List<File> shardDirs, File outputDir) throws IOException
+	{
+		for(String name : SHARED_FILES)
+			concatenate(shardDirs.subList(0, 1), name, outputDir);
+
+		concatenate(shardDirs, "customers.txt", outputDir);
+
+		if(outputOrder == TransactionOutputOrder.CUSTOMER)
+			concatenate(shardDirs, "transactions.txt", outputDir);
+		else
+			mergeTransactions(shardDirs, outputDir);
+	}
+
+	private void concatenate(List<File> shardDirs, String name, File outputDir) throws IOException
+	{
+		File outputFile = new File(outputDir, name);
+		System.out.println(outputFile.toString());
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile));
+		try
+		{
+			byte[] buffer = new byte[1 << 16];
+			for(File shardDir : shardDirs)
+			{
+				InputStream input = new FileInputStream(new File(shardDir, name));
+				try
+				{
+					int count;
+					while((count = input.read(buffer)) != -1)
+						output.write(buffer, 0, count);
+				}
+				finally
+				{
+					input.close();
+				}
+			}
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+
+	/**
+	 * Reads a shard's line items one at a time, keeping the fields the
+	 * output is ordered by.
+	 */
+	private static class ShardReader
+	{
+		final int shard;
+		final InputStream input;
+		final ByteArrayOutputStream line;
+		double dateTime;
+		int storeId;
+
+		ShardReader(int shard, File file) throws IOException
+		{
+			this.shard = shard;
+			this.input = new BufferedInputStream(new FileInputStream(file));
+			this.line = new ByteArrayOutputStream();
+		}
+
+		/**
+		 * @return false at the end of the shard
+		 */
+		boolean advance() throws IOException
+		{
+			line.reset();
+			int b;
+			while((b = input.read()) != -1)
+			{
+				line.write(b);
+				if(b == '\n')
+					break;
+			}
+
+			if(line.size() == 0)
+				return false;
+
+			// transaction id, time and store id lead the record
+			String[] fields = line.toString("US-ASCII").split(",", 4);
+			if(fields.length < 4)
+				throw new IOException("Malformed line item in shard " + shard + ": " + line.toString("US-ASCII"));
+
+			dateTime = Double.parseDouble(fields[1]);
+			storeId = Integer.parseInt(fields[2]);
+
+			return true;
+		}
+
+		void close() throws IOException
+		{
+			input.close();
+		}
+	}
+
+	private class ShardOrder implements Comparator<ShardReader>
+	{
+		public int compare(ShardReader a, ShardReader b)
+		{
+			int cmp = 0;
+			if(outputOrder == TransactionOutputOrder.STORE)
+				cmp = Integer.compare(a.storeId, b.storeId);
+			if(cmp == 0)
+				cmp = Double.compare(a.dateTime, b.dateTime);
+			if(cmp == 0)
+				cmp = Integer.compare(a.shard, b.shard);
+
+			return cmp;
+		}
+	}
+
+	private void mergeTransactions(List<File> shardDirs, File outputDir) throws IOException
+	{
+		File outputFile = new File(outputDir, "transactions.txt");
+		System.out.println(outputFile.toString());
+
+		PriorityQueue<ShardReader> heads = new PriorityQueue<ShardReader>(Math.max(1, shardDirs.size()),
+				new ShardOrder());
+		List<ShardReader> readers = Lists.newArrayList();
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile));
+		try
+		{
+			for(int shard = 0; shard < shardDirs.size(); shard++)
+			{
+				ShardReader reader = new ShardReader(shard, new File(shardDirs.get(shard), "transactions.txt"));
+				readers.add(reader);
+				if(reader.advance())
+					heads.add(reader);
+			}
+
+			while(!heads.isEmpty())
+			{
+				ShardReader reader = heads.poll();
+				reader.line.writeTo(output);
+				if(reader.advance())
+					heads.add(reader);
+			}
+		}
+		finally
+		{
+			output.close();
+			for(ShardReader reader : readers)
+				reader.close();
+		}
+	}
+}
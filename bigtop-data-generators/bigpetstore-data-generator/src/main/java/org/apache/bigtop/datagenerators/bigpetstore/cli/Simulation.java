@@ -15,54 +15,126 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.cli;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
 import org.apache.bigtop.datagenerators.bigpetstore.CustomerGenerator;
-import org.apache.bigtop.datagenerators.bigpetstore.ProductGenerator;
+import org.apache.bigtop.datagenerators.bigpetstore.InputDataRegistry;
 import org.apache.bigtop.datagenerators.bigpetstore.PurchasingModelGenerator;
 import org.apache.bigtop.datagenerators.bigpetstore.StoreGenerator;
 import org.apache.bigtop.datagenerators.bigpetstore.TransactionGenerator;
+import org.apache.bigtop.datagenerators.bigpetstore.TransactionScheduler;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.TransactionBuffer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.UniformIntSampler;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
+/**
+ * A simulation can be checkpointed to disk and restored, either to resume a
+ * run that failed or to extend a finished run to a later end time.
+ *
+ * The checkpoint holds the simulation's parameters, the scheduler's clock
+ * and, for every customer, the pending transaction and the state of the
+ * customer's generator: inventories, Markov chain states, id counter and
+ * random number generators.  Stores, customers, products and profiles are
+ * regenerated from the seed on restore, and the transactions themselves
+ * are not saved.  Instead they are handed to a {@link TransactionSink} as
+ * they are generated, and the checkpoint records how many were written and
+ * where the output ended, so a resumed run appends to the existing output.
+ */
 public class Simulation
 {
+	private static final int CHECKPOINT_MAGIC = 0x42505343;
+	private static final int CHECKPOINT_VERSION = 1;
+
 	InputData inputData;
+	File checkpointFile;
+	double checkpointInterval;
+	TransactionSink sink;
+	long seed;
 	SeedFactory seedFactory;
 	int nStores;
 	int nCustomers;
 	int nPurchasingModels;
 	double simulationTime;
+	int shard;
+	int nShards;
+	File catalogFile;
 
 	List<Store> stores;
 	List<Customer> customers;
-	Sampler<PurchasingModel> purchasingModelSampler;
-	List<PurchasingModel> purchasingProfiles;
-	List<Transaction> transactions;
+	List<PurchasingModel<?>> purchasingProfiles;
+	TransactionBuffer transactions;
 	List<ProductCategory> productCategories;
+	List<TransactionGenerator> generators;
+	TransactionScheduler scheduler;
+	long flushedTransactions;
+	long outputOffset;
 
 	public Simulation(InputData inputData, int nStores, int nCustomers, int nPurchasingModels, double simulationTime, long seed)
 	{
+		this(inputData, nStores, nCustomers, nPurchasingModels, simulationTime, seed, 0, 1);
+	}
+
+	/**
+	 * Simulates shard i of N: every shard generates the same stores, products
+	 * and purchasing profiles, but only simulates its own contiguous range of
+	 * customers.  Each customer's transactions are seeded from the customer's
+	 * index alone, so the shards together produce exactly the customers and
+	 * transactions of a single run with the same seed.
+	 */
+	public Simulation(InputData inputData, int nStores, int nCustomers, int nPurchasingModels, double simulationTime, long seed,
+			int shard, int nShards)
+	{
+		if(nShards < 1 || shard < 0 || shard >= nShards)
+			throw new IllegalArgumentException("Invalid shard " + shard + " of " + nShards);
+
 		this.inputData = inputData;
 		this.nStores = nStores;
 		this.nCustomers = nCustomers;
 		this.nPurchasingModels = nPurchasingModels;
 		this.simulationTime = simulationTime;
+		this.shard = shard;
+		this.nShards = nShards;
+		this.seed = seed;
 		seedFactory = new SeedFactory(seed);
 	}
 
+	public int getFirstCustomer()
+	{
+		return (int) ((long) nCustomers * shard / nShards);
+	}
+
+	public int getLastCustomer()
+	{
+		return (int) ((long) nCustomers * (shard + 1) / nShards);
+	}
+
 	public void generateStores() throws Exception
 	{
 		System.out.println("Generating stores");
@@ -85,11 +157,17 @@ public class Simulation
 		System.out.println("Generating customers");
 		CustomerGenerator generator = new CustomerGenerator(inputData, stores, seedFactory);
 
+		/*
+		 * Customers are drawn from one shared sequence, so every shard draws
+		 * all of them up to its range.  That is cheap next to simulating
+		 * their transactions.
+		 */
 		customers = new Vector<Customer>();
-		for(int i = 0; i < nCustomers; i++)
+		for(int i = 0; i < getLastCustomer(); i++)
 		{
 			Customer customer = generator.generate();
-			customers.add(customer);
+			if(i >= getFirstCustomer())
+				customers.add(customer);
 		}
 
 		customers = Collections.unmodifiableList(customers);
@@ -97,11 +175,22 @@ public class Simulation
 		System.out.println("Generated " + customers.size() + " customers");
 	}
 
-	public void generateProducts()
+	/**
+	 * Reads the product categories from the given catalog file instead of
+	 * the built-in collection.
+	 */
+	public void setProductCatalog(File catalogFile)
+	{
+		this.catalogFile = catalogFile;
+	}
+
+	public void generateProducts() throws Exception
 	{
 		System.out.println("Generating products");
-		ProductGenerator generator = new ProductGenerator(Constants.PRODUCTS_COLLECTION);
-		productCategories = generator.generate();
+		if(catalogFile != null)
+			productCategories = InputDataRegistry.getProductCategories(catalogFile);
+		else
+			productCategories = InputDataRegistry.getProductCategories(Constants.PRODUCTS_COLLECTION);
 	}
 
 	public void generatePurchasingProfiles() throws Exception
@@ -109,53 +198,304 @@ public class Simulation
 		System.out.println("Generating purchasing profiles");
 		PurchasingModelGenerator generator = new PurchasingModelGenerator(productCategories, seedFactory);
 
-		purchasingProfiles = new Vector<PurchasingModel>();
-		for(int i = 0; i < nPurchasingModels; i++)
-		{
-			PurchasingModel profile = generator.generate();
-			purchasingProfiles.add(profile);
-		}
+		purchasingProfiles = new Vector<PurchasingModel<?>>(generator.generate(nPurchasingModels));
 
 		System.out.println("Generated " + purchasingProfiles.size() + " purchasing profiles");
-
-		purchasingModelSampler = RouletteWheelSampler.createUniform(purchasingProfiles, seedFactory);
 	}
 
 	public void generateTransactions() throws Exception
 	{
 		System.out.println("Generating transactions");
-		transactions = Lists.newArrayList();
 
-		for(int i = 0; i < nCustomers; i++)
-		{
-			Customer customer = customers.get(i);
-			PurchasingModel profile = purchasingModelSampler.sample();
+		if(scheduler == null)
+			scheduleCustomers();
 
-			TransactionGenerator generator = new TransactionGenerator(customer,
-					profile, productCategories, seedFactory);
+		// transactions come out in time order across all customers
+		double lastCheckpoint = scheduler.getCurrentTime();
+		for(double windowEnd = scheduler.getCurrentTime() + Constants.SIMULATION_TIME_WINDOW; scheduler.hasNext();
+				windowEnd += Constants.SIMULATION_TIME_WINDOW)
+		{
+			scheduler.advance(windowEnd, transactions);
+			flush();
 
-			while(true)
+			if(checkpointFile != null && windowEnd - lastCheckpoint >= checkpointInterval)
 			{
-				Transaction transaction = generator.generate();
-
-				if(transaction.getDateTime() > simulationTime)
-					break;
-				transactions.add(transaction);
+				checkpoint(checkpointFile);
+				lastCheckpoint = windowEnd;
 			}
 		}
 
-		System.out.println("Generated " + transactions.size() + " transactions");
+		// every customer may be parked before the end; mark the run as finished
+		scheduler.advance(simulationTime, transactions);
+		flush();
+
+		if(checkpointFile != null)
+			checkpoint(checkpointFile);
+
+		System.out.println("Generated " + (flushedTransactions + transactions.size()) + " transactions");
 	}
 
+	private void flush() throws IOException
+	{
+		if(sink == null || transactions.isEmpty())
+			return;
+
+		outputOffset = sink.write(transactions);
+		flushedTransactions += transactions.size();
+		transactions.clear();
+	}
+
+	private TransactionBuffer newTransactionBuffer()
+	{
+		return new TransactionBuffer(stores, customers, productCategories, Constants.TRANSACTION_BUFFER_OFF_HEAP);
+	}
+
+	private TransactionGenerator buildGenerator(int i) throws Exception
+	{
+		// independent of the other customers so shards can reproduce it
+		SeedFactory customerSeedFactory = seedFactory.derive(getFirstCustomer() + i);
+
+		Sampler<Integer> profileSampler = new UniformIntSampler(0, purchasingProfiles.size() - 1,
+				customerSeedFactory);
+		PurchasingModel<?> profile = purchasingProfiles.get(profileSampler.sample());
+
+		return new TransactionGenerator(customers.get(i), profile, productCategories, customerSeedFactory);
+	}
+
+	private void scheduleCustomers() throws Exception
+	{
+		transactions = newTransactionBuffer();
+		scheduler = new TransactionScheduler(simulationTime);
+		generators = Lists.newArrayListWithCapacity(customers.size());
+		for(int i = 0; i < customers.size(); i++)
+		{
+			TransactionGenerator generator = buildGenerator(i);
+			generators.add(generator);
+			scheduler.addCustomer(generator);
+		}
+	}
+
+	/**
+	 * Runs the simulation up to its end time.  A restored simulation picks
+	 * up where its checkpoint was taken.
+	 */
 	public void simulate() throws Exception
 	{
-		generateStores();
-		generateCustomers();
-		generateProducts();
-		generatePurchasingProfiles();
+		if(scheduler == null)
+		{
+			generateStores();
+			generateCustomers();
+			generateProducts();
+			generatePurchasingProfiles();
+		}
 		generateTransactions();
 	}
 
+	/**
+	 * Moves the end of the simulation to a later time.  If the simulation
+	 * had reached its old end, the next call to simulate() generates only
+	 * the transactions after it, and writes them to the sink from its start.
+	 * A simulation restored from a checkpoint taken part way through still
+	 * has to complete its output, so simulate() continues it up to the new
+	 * end.
+	 */
+	public void extend(double simulationTime)
+	{
+		if(scheduler == null)
+			throw new IllegalStateException("Only a simulation that has been run can be extended");
+
+		boolean finished = scheduler.getCurrentTime() >= this.simulationTime;
+
+		scheduler.extend(simulationTime);
+		this.simulationTime = simulationTime;
+		if(finished)
+		{
+			transactions = newTransactionBuffer();
+			flushedTransactions = 0;
+			outputOffset = 0;
+		}
+	}
+
+	/**
+	 * Writes a checkpoint to the given file every interval days of simulated
+	 * time and when the simulation finishes.  Without a sink the transactions
+	 * generated before a checkpoint are not saved anywhere.
+	 */
+	public void setCheckpoint(File file, double interval)
+	{
+		this.checkpointFile = file;
+		this.checkpointInterval = interval;
+	}
+
+	/**
+	 * Hands the transactions to the given sink as they are generated instead
+	 * of keeping them in {@link #getTransactions()}.
+	 */
+	public void setTransactionSink(TransactionSink sink)
+	{
+		this.sink = sink;
+	}
+
+	public void checkpoint(File file) throws IOException
+	{
+		if(scheduler == null)
+			throw new IllegalStateException("Only a simulation that has been started can be checkpointed");
+
+		// the checkpoint must not get ahead of the output
+		flush();
+
+		// never leave a truncated checkpoint behind if we die mid-write
+		File tmpFile = new File(file.getPath() + ".tmp");
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(new FileOutputStream(tmpFile))));
+		try
+		{
+			output.writeInt(CHECKPOINT_MAGIC);
+			output.writeInt(CHECKPOINT_VERSION);
+
+			output.writeLong(seed);
+			output.writeInt(nStores);
+			output.writeInt(nCustomers);
+			output.writeInt(nPurchasingModels);
+			output.writeDouble(simulationTime);
+			output.writeInt(shard);
+			output.writeInt(nShards);
+			output.writeBoolean(catalogFile != null);
+			if(catalogFile != null)
+				output.writeUTF(catalogFile.getPath());
+
+			writeState(output);
+		}
+		finally
+		{
+			output.close();
+		}
+
+		if(!tmpFile.renameTo(file))
+		{
+			file.delete();
+			if(!tmpFile.renameTo(file))
+				throw new IOException("Unable to move checkpoint to " + file);
+		}
+	}
+
+	private void writeState(DataOutput output) throws IOException
+	{
+		output.writeLong(flushedTransactions + transactions.size());
+		output.writeLong(outputOffset);
+		output.writeDouble(scheduler.getCurrentTime());
+
+		Map<String, Integer> categoryIds = Maps.newHashMap();
+		for(int i = 0; i < productCategories.size(); i++)
+			categoryIds.put(productCategories.get(i).getCategoryLabel(), i);
+
+		List<Transaction> pending = scheduler.getPendingTransactions();
+		output.writeInt(pending.size());
+		for(int i = 0; i < pending.size(); i++)
+		{
+			Transaction transaction = pending.get(i);
+			output.writeLong(transaction.getId());
+			output.writeDouble(transaction.getDateTime());
+			output.writeInt(transaction.getProducts().size());
+			for(Product product : transaction.getProducts())
+			{
+				output.writeInt(categoryIds.get(product.getCategory()));
+				output.writeInt(product.getId());
+			}
+
+			generators.get(i).writeState(output);
+		}
+	}
+
+	private void readState(DataInput input) throws Exception
+	{
+		flushedTransactions = input.readLong();
+		outputOffset = input.readLong();
+		double currentTime = input.readDouble();
+
+		int nPending = input.readInt();
+		if(nPending != customers.size())
+			throw new IOException("Checkpoint has " + nPending + " customers but " + customers.size()
+					+ " were generated");
+
+		transactions = newTransactionBuffer();
+		scheduler = new TransactionScheduler(simulationTime, currentTime);
+		generators = Lists.newArrayListWithCapacity(customers.size());
+		for(int i = 0; i < customers.size(); i++)
+		{
+			Customer customer = customers.get(i);
+
+			long id = input.readLong();
+			double dateTime = input.readDouble();
+			int nProducts = input.readInt();
+			List<Product> products = Lists.newArrayListWithCapacity(nProducts);
+			for(int j = 0; j < nProducts; j++)
+			{
+				int category = input.readInt();
+				int product = input.readInt();
+				if(category < 0 || category >= productCategories.size()
+						|| product < 0 || product >= productCategories.get(category).getProducts().size())
+					throw new IOException("Checkpoint refers to unknown product " + product + " of category "
+							+ category);
+
+				products.add(productCategories.get(category).getProducts().get(product));
+			}
+			Transaction pending = new Transaction(id, customer, customer.getStore(), dateTime, products);
+
+			// rebuilt exactly as before, then moved to where it stood
+			TransactionGenerator generator = buildGenerator(i);
+			generator.readState(input);
+
+			generators.add(generator);
+			scheduler.addCustomer(generator, pending);
+		}
+	}
+
+	/**
+	 * Restores a checkpointed simulation.  The stores, customers, products
+	 * and profiles are regenerated from the given input data, which must be
+	 * the data the simulation was started with.
+	 */
+	public static Simulation restore(File file, InputData inputData) throws Exception
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(file))));
+		try
+		{
+			if(input.readInt() != CHECKPOINT_MAGIC)
+				throw new IOException(file + " is not a simulation checkpoint");
+
+			int version = input.readInt();
+			if(version != CHECKPOINT_VERSION)
+				throw new IOException("Unsupported checkpoint version " + version + " in " + file);
+
+			long seed = input.readLong();
+			int nStores = input.readInt();
+			int nCustomers = input.readInt();
+			int nPurchasingModels = input.readInt();
+			double simulationTime = input.readDouble();
+			int shard = input.readInt();
+			int nShards = input.readInt();
+
+			Simulation simulation = new Simulation(inputData, nStores, nCustomers, nPurchasingModels,
+					simulationTime, seed, shard, nShards);
+			if(input.readBoolean())
+				simulation.setProductCatalog(new File(input.readUTF()));
+
+			simulation.generateStores();
+			simulation.generateCustomers();
+			simulation.generateProducts();
+			simulation.generatePurchasingProfiles();
+			simulation.readState(input);
+
+			return simulation;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
 	public List<Store> getStores()
 	{
 		return stores;
@@ -166,11 +506,47 @@ public class Simulation
 		return customers;
 	}
 
-	public List<Transaction> getTransactions()
+	/**
+	 * @return the transactions generated since they were last written to
+	 *   the sink, or since the simulation was started or restored
+	 */
+	public TransactionBuffer getTransactions()
 	{
 		return transactions;
 	}
 
+	/**
+	 * @return number of transactions of this run that precede the ones in
+	 *   {@link #getTransactions()}
+	 */
+	public long getFlushedTransactions()
+	{
+		return flushedTransactions;
+	}
+
+	/**
+	 * @return position the sink returned after the transactions last written
+	 */
+	public long getOutputOffset()
+	{
+		return outputOffset;
+	}
+
+	public double getSimulationTime()
+	{
+		return simulationTime;
+	}
+
+	public int getShard()
+	{
+		return shard;
+	}
+
+	public int getNShards()
+	{
+		return nShards;
+	}
+
 	public InputData getInputData()
 	{
 		return inputData;
@@ -181,7 +557,7 @@ public class Simulation
 		return this.productCategories;
 	}
 
-	public List<PurchasingModel> getPurchasingProfiles()
+	public List<PurchasingModel<?>> getPurchasingProfiles()
 	{
 		return this.purchasingProfiles;
 	}
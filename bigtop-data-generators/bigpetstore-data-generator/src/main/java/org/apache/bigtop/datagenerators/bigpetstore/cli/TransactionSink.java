@@ -0,0 +1,35 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import java.io.IOException;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.TransactionBuffer;
+
+/**
+ * Receives the transactions of a simulation as they are generated, so they
+ * need not be held in memory until the end of the run.
+ */
+public interface TransactionSink
+{
+	/**
+	 * Writes the transactions and flushes them to the output.
+	 *
+	 * @return position of the output after the transactions.  A resumed
+	 *   simulation continues writing at the position saved in its checkpoint.
+	 */
+	public long write(TransactionBuffer transactions) throws IOException;
+}
@@ -16,79 +16,222 @@
 package org.apache.bigtop.datagenerators.bigpetstore.datamodels;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
+/**
+ * A product is an immutable set of field values laid out according to a
+ * shared {@link ProductSchema}.  The category, quantity, and price fields
+ * are additionally kept in dedicated slots since they are read on every
+ * simulated purchase.
+ *
+ * Products are equal when they have the same schema and field values.
+ * The id is the product's index within its category and does not take
+ * part in equality.
+ */
 public class Product implements Serializable
 {
 	private static final long serialVersionUID = 4519472063058037956L;
 
-	ImmutableMap<String, Object> fields;
+	final ProductSchema schema;
+	final Object[] values;
+	final int id;
+
+	final String category;
+	final double quantity;
+	final double price;
+	final double unitPrice;
+	final int hashCode;
+
+	transient String string;
 
 	public Product(Map<String, Object> fields)
 	{
-		this.fields = ImmutableMap.copyOf(fields);
+		this.schema = ProductSchema.of(fields.keySet());
+		this.values = new Object[schema.size()];
+		for(Map.Entry<String, Object> entry : fields.entrySet())
+		{
+			values[schema.getFieldIndex(entry.getKey())] = entry.getValue();
+		}
+		this.id = -1;
+
+		Object categoryValue = slot(schema.categoryIndex);
+		this.category = categoryValue instanceof String ? (String) categoryValue : null;
+		this.quantity = doubleSlot(schema.quantityIndex);
+		this.price = doubleSlot(schema.priceIndex);
+		this.unitPrice = doubleSlot(schema.unitPriceIndex);
+		this.hashCode = 31 * schema.hashCode() + Arrays.hashCode(values);
+	}
+
+	private Product(Product other, int id)
+	{
+		this.schema = other.schema;
+		this.values = other.values;
+		this.id = id;
+		this.category = other.category;
+		this.quantity = other.quantity;
+		this.price = other.price;
+		this.unitPrice = other.unitPrice;
+		this.hashCode = other.hashCode;
+		this.string = other.string;
+	}
+
+	private Object slot(int fieldIndex)
+	{
+		if(fieldIndex < 0)
+		{
+			return null;
+		}
+
+		return values[fieldIndex];
+	}
+
+	private double doubleSlot(int fieldIndex)
+	{
+		Object value = slot(fieldIndex);
+		if(value instanceof Double)
+		{
+			return (Double) value;
+		}
+
+		return Double.NaN;
+	}
+
+	/**
+	 * Returns a copy of this product sharing its field values but with
+	 * the given id.
+	 */
+	public Product withId(int id)
+	{
+		return new Product(this, id);
+	}
+
+	/**
+	 * @return index of the product within its category or -1 if unassigned
+	 */
+	public int getId()
+	{
+		return id;
+	}
+
+	public ProductSchema getSchema()
+	{
+		return schema;
 	}
 
 	public ImmutableSet<String> getFieldNames()
 	{
-		return fields.keySet();
+		return schema.getFieldNames();
 	}
 
 	public Object getFieldValue(String fieldName)
 	{
-		return fields.get(fieldName);
+		return slot(schema.getFieldIndex(fieldName));
+	}
+
+	public Object getFieldValue(int fieldIndex)
+	{
+		return values[fieldIndex];
 	}
 
 	public String getFieldValueAsString(String fieldName)
 	{
-		return fields.get(fieldName).toString();
+		return getFieldValue(fieldName).toString();
 	}
 
 	public Double getFieldValueAsDouble(String fieldName)
 	{
 		Object value = getFieldValue(fieldName);
-		try
+		if(value instanceof Double)
 		{
-			Double doubleValue = (Double) value;
-			return doubleValue;
-		}
-		catch(ClassCastException e)
-		{
-			return null;
+			return (Double) value;
 		}
+
+		return null;
 	}
 
 	public Long getFieldValueAsLong(String fieldName)
 	{
 		Object value = getFieldValue(fieldName);
-		try
+		if(value instanceof Long)
 		{
-			Long longValue = (Long) value;
-			return longValue;
+			return (Long) value;
 		}
-		catch(ClassCastException e)
+		else if(value instanceof Integer)
 		{
-			try
-			{
-				Integer intValue = (Integer) value;
-				return new Long(intValue);
-			}
-			catch(ClassCastException f)
-			{
-				return null;
-			}
+			return Long.valueOf((Integer) value);
 		}
+
+		return null;
+	}
+
+	/**
+	 * @return value of the category field or null if it is missing
+	 */
+	public String getCategory()
+	{
+		return category;
+	}
+
+	/**
+	 * @return value of the quantity field or NaN if it is missing or not a double
+	 */
+	public double getQuantity()
+	{
+		return quantity;
+	}
+
+	/**
+	 * @return value of the price field or NaN if it is missing or not a double
+	 */
+	public double getPrice()
+	{
+		return price;
+	}
+
+	/**
+	 * @return value of the unit price field or NaN if it is missing or not a double
+	 */
+	public double getUnitPrice()
+	{
+		return unitPrice;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if(this == obj)
+			return true;
+
+		if(!(obj instanceof Product))
+			return false;
+
+		Product other = (Product) obj;
+		return hashCode == other.hashCode &&
+				schema.equals(other.schema) &&
+				Arrays.equals(values, other.values);
 	}
 
 	public String toString()
 	{
-		String str = "";
-		for(Map.Entry<String, Object> entry : fields.entrySet())
+		String str = string;
+		if(str == null)
 		{
-			str += entry.getKey() + "=" + entry.getValue() + ";";
+			StringBuilder builder = new StringBuilder();
+			for(int i = 0; i < values.length; i++)
+			{
+				builder.append(schema.getFieldName(i)).append('=').append(values[i]).append(';');
+			}
+			str = builder.toString();
+			string = str;
 		}
 
 		return str;
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.datamodels;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Shared field layout for products with the same field names.
+ *
+ * Schemas are interned, so every product of a category points at the
+ * same instance and only stores its field values.  The slots of the
+ * fields used on the purchase path are resolved once here.
+ */
+public class ProductSchema implements Serializable
+{
+	private static final long serialVersionUID = -2164939658312775310L;
+
+	private static final ConcurrentMap<Set<String>, ProductSchema> schemas =
+			new ConcurrentHashMap<Set<String>, ProductSchema>();
+
+	final ImmutableList<String> fieldNames;
+	final transient ImmutableSet<String> fieldNameSet;
+	final transient ImmutableMap<String, Integer> fieldIndices;
+	final transient int categoryIndex;
+	final transient int quantityIndex;
+	final transient int priceIndex;
+	final transient int unitPriceIndex;
+
+	private ProductSchema(List<String> fieldNames)
+	{
+		ImmutableList.Builder<String> names = ImmutableList.builder();
+		ImmutableMap.Builder<String, Integer> indices = ImmutableMap.builder();
+		for(int i = 0; i < fieldNames.size(); i++)
+		{
+			String fieldName = fieldNames.get(i).intern();
+			names.add(fieldName);
+			indices.put(fieldName, i);
+		}
+
+		this.fieldNames = names.build();
+		this.fieldNameSet = ImmutableSet.copyOf(this.fieldNames);
+		this.fieldIndices = indices.build();
+
+		this.categoryIndex = getFieldIndex(Constants.PRODUCT_CATEGORY);
+		this.quantityIndex = getFieldIndex(Constants.PRODUCT_QUANTITY);
+		this.priceIndex = getFieldIndex(Constants.PRODUCT_PRICE);
+		this.unitPriceIndex = getFieldIndex(Constants.PRODUCT_UNIT_PRICE);
+	}
+
+	/**
+	 * Returns the interned schema for the given field names.  Schemas are
+	 * keyed by the set of names, so products with the same fields share a
+	 * schema regardless of the order they were given in.  The order of the
+	 * names that first created the schema determines the slot layout and
+	 * the order used by {@link Product#toString()}.
+	 */
+	public static ProductSchema of(Collection<String> fieldNames)
+	{
+		Set<String> key = ImmutableSet.copyOf(fieldNames);
+		ProductSchema schema = schemas.get(key);
+		if(schema == null)
+		{
+			ProductSchema newSchema = new ProductSchema(ImmutableList.copyOf(key));
+			schema = schemas.putIfAbsent(key, newSchema);
+			if(schema == null)
+			{
+				schema = newSchema;
+			}
+		}
+
+		return schema;
+	}
+
+	public ImmutableSet<String> getFieldNames()
+	{
+		return fieldNameSet;
+	}
+
+	public String getFieldName(int fieldIndex)
+	{
+		return fieldNames.get(fieldIndex);
+	}
+
+	/**
+	 * @return slot of the given field or -1 if the schema does not contain it
+	 */
+	public int getFieldIndex(String fieldName)
+	{
+		Integer idx = fieldIndices.get(fieldName);
+		if(idx == null)
+		{
+			return -1;
+		}
+
+		return idx;
+	}
+
+	public int size()
+	{
+		return fieldNames.size();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return fieldNames.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if(this == obj)
+			return true;
+
+		if(!(obj instanceof ProductSchema))
+			return false;
+
+		return fieldNames.equals(((ProductSchema) obj).fieldNames);
+	}
+
+	private Object readResolve()
+	{
+		return of(fieldNames);
+	}
+}
@@ -24,13 +24,13 @@ public class Transaction implements Serializable
 {
 	private static final long serialVersionUID = 103133601154354349L;
 
-	final int id;
+	final long id;
 	final Customer customer;
 	final Store store;
 	final Double dateTime;
 	final ImmutableList<Product> products;
 
-	public Transaction(int id, Customer customer, Store store, Double dateTime, List<Product> products)
+	public Transaction(long id, Customer customer, Store store, Double dateTime, List<Product> products)
 	{
 		this.id = id;
 		this.customer = customer;
@@ -39,7 +39,7 @@ public class Transaction implements Serializable
 		this.products = ImmutableList.copyOf(products);
 	}
 
-	public int getId()
+	public long getId()
 	{
 		return id;
 	}
@@ -0,0 +1,352 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.datamodels;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Column-oriented store for generated transactions.  Instead of keeping a
+ * Transaction object graph per purchase, each transaction is a row of
+ * primitive columns (id, customer id, store id, time, offset of its first
+ * line item) and each line item is a single int indexing the products of
+ * all categories.  Customers, stores and products are kept once and looked
+ * up by id when a row is read.
+ *
+ * The columns live on the heap or, optionally, in direct buffers outside
+ * of it.  As a List, the buffer materializes a Transaction for each get();
+ * writers that stream many rows should use the column accessors instead.
+ */
+public class TransactionBuffer extends AbstractList<Transaction> implements RandomAccess, Serializable
+{
+	private static final long serialVersionUID = -5148035873420452361L;
+
+	private static final int INITIAL_CAPACITY = 1024;
+	// direct buffers are addressed in bytes, so the 8-byte columns cap the row count
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE / 8;
+
+	private final List<Store> stores;
+	private final List<Customer> customers;
+	private final List<ProductCategory> productCategories;
+	private final boolean offHeap;
+
+	private transient LongBuffer ids;
+	private transient IntBuffer customerIds;
+	private transient IntBuffer storeIds;
+	private transient DoubleBuffer dateTimes;
+	private transient IntBuffer itemOffsets;
+	private transient IntBuffer productIndices;
+	private transient int size;
+	private transient int itemCount;
+
+	private transient Map<Integer, Store> storesById;
+	private transient Map<Integer, Customer> customersById;
+	private transient Map<String, Integer> categoryOffsets;
+	private transient Product[] products;
+
+	public TransactionBuffer(List<Store> stores, List<Customer> customers,
+			List<ProductCategory> productCategories, boolean offHeap)
+	{
+		this.stores = stores;
+		this.customers = customers;
+		this.productCategories = productCategories;
+		this.offHeap = offHeap;
+
+		allocate(INITIAL_CAPACITY, INITIAL_CAPACITY);
+		index();
+	}
+
+	private void allocate(int capacity, int itemCapacity)
+	{
+		ids = allocateBytes(capacity * 8).asLongBuffer();
+		customerIds = allocateInts(capacity);
+		storeIds = allocateInts(capacity);
+		dateTimes = allocateBytes(capacity * 8).asDoubleBuffer();
+		itemOffsets = allocateInts(capacity + 1);
+		productIndices = allocateInts(itemCapacity);
+		size = 0;
+		itemCount = 0;
+	}
+
+	private ByteBuffer allocateBytes(int bytes)
+	{
+		ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+		return buffer.order(ByteOrder.nativeOrder());
+	}
+
+	private IntBuffer allocateInts(int capacity)
+	{
+		return allocateBytes(capacity * 4).asIntBuffer();
+	}
+
+	private IntBuffer grow(IntBuffer buffer, int required)
+	{
+		if(required <= buffer.capacity())
+			return buffer;
+
+		IntBuffer grown = allocateInts(newCapacity(buffer.capacity(), required));
+		buffer.clear();
+		grown.put(buffer);
+		grown.clear();
+
+		return grown;
+	}
+
+	private LongBuffer grow(LongBuffer buffer, int required)
+	{
+		if(required <= buffer.capacity())
+			return buffer;
+
+		LongBuffer grown = allocateBytes(newCapacity(buffer.capacity(), required) * 8).asLongBuffer();
+		buffer.clear();
+		grown.put(buffer);
+		grown.clear();
+
+		return grown;
+	}
+
+	private DoubleBuffer grow(DoubleBuffer buffer, int required)
+	{
+		if(required <= buffer.capacity())
+			return buffer;
+
+		DoubleBuffer grown = allocateBytes(newCapacity(buffer.capacity(), required) * 8).asDoubleBuffer();
+		buffer.clear();
+		grown.put(buffer);
+		grown.clear();
+
+		return grown;
+	}
+
+	private static int newCapacity(int capacity, int required)
+	{
+		long grown = Math.max((long) capacity * 2, required);
+		return (int) Math.min(grown, MAX_CAPACITY);
+	}
+
+	private void index()
+	{
+		storesById = Maps.newHashMap();
+		for(Store store : stores)
+			storesById.put(store.getId(), store);
+
+		customersById = Maps.newHashMap();
+		for(Customer customer : customers)
+			customersById.put(customer.getId(), customer);
+
+		categoryOffsets = Maps.newHashMap();
+		List<Product> allProducts = Lists.newArrayList();
+		for(ProductCategory category : productCategories)
+		{
+			categoryOffsets.put(category.getCategoryLabel(), allProducts.size());
+			allProducts.addAll(category.getProducts());
+		}
+		products = allProducts.toArray(new Product[allProducts.size()]);
+	}
+
+	private int productIndex(Product product)
+	{
+		Integer offset = categoryOffsets.get(product.getCategory());
+		int index = offset == null ? -1 : offset + product.getId();
+		if(offset == null || product.getId() < 0 || index >= products.length || !products[index].equals(product))
+			throw new IllegalArgumentException("Product " + product + " is not in the buffer's catalog");
+
+		return index;
+	}
+
+	@Override
+	public boolean add(Transaction transaction)
+	{
+		List<Product> items = transaction.getProducts();
+		if(size + 2 > MAX_CAPACITY || (long) itemCount + items.size() > MAX_CAPACITY)
+			throw new IllegalStateException("Transaction buffer is full");
+
+		ids = grow(ids, size + 1);
+		customerIds = grow(customerIds, size + 1);
+		storeIds = grow(storeIds, size + 1);
+		dateTimes = grow(dateTimes, size + 1);
+		itemOffsets = grow(itemOffsets, size + 2);
+		productIndices = grow(productIndices, itemCount + items.size());
+
+		ids.put(size, transaction.getId());
+		customerIds.put(size, transaction.getCustomer().getId());
+		storeIds.put(size, transaction.getStore().getId());
+		dateTimes.put(size, transaction.getDateTime());
+		for(Product product : items)
+		{
+			productIndices.put(itemCount++, productIndex(product));
+		}
+		size++;
+		itemOffsets.put(size, itemCount);
+
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		allocate(INITIAL_CAPACITY, INITIAL_CAPACITY);
+		modCount++;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return total number of line items over all transactions
+	 */
+	public int getItemCount()
+	{
+		return itemCount;
+	}
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	public long getId(int index)
+	{
+		checkIndex(index);
+		return ids.get(index);
+	}
+
+	public int getCustomerId(int index)
+	{
+		checkIndex(index);
+		return customerIds.get(index);
+	}
+
+	public Customer getCustomer(int index)
+	{
+		return customersById.get(getCustomerId(index));
+	}
+
+	public int getStoreId(int index)
+	{
+		checkIndex(index);
+		return storeIds.get(index);
+	}
+
+	public Store getStore(int index)
+	{
+		return storesById.get(getStoreId(index));
+	}
+
+	public double getDateTime(int index)
+	{
+		checkIndex(index);
+		return dateTimes.get(index);
+	}
+
+	/**
+	 * @return index of the transaction's first line item
+	 */
+	public int getFirstItem(int index)
+	{
+		checkIndex(index);
+		return itemOffsets.get(index);
+	}
+
+	/**
+	 * @return index one past the transaction's last line item
+	 */
+	public int getLastItem(int index)
+	{
+		checkIndex(index);
+		return itemOffsets.get(index + 1);
+	}
+
+	public Product getItem(int item)
+	{
+		if(item < 0 || item >= itemCount)
+			throw new IndexOutOfBoundsException("Item: " + item + ", Items: " + itemCount);
+
+		return products[productIndices.get(item)];
+	}
+
+	@Override
+	public Transaction get(int index)
+	{
+		List<Product> items = Lists.newArrayListWithCapacity(getLastItem(index) - getFirstItem(index));
+		for(int item = getFirstItem(index); item < getLastItem(index); item++)
+			items.add(getItem(item));
+
+		return new Transaction(getId(index), getCustomer(index), getStore(index), getDateTime(index), items);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+
+		out.writeInt(size);
+		out.writeInt(itemCount);
+		for(int i = 0; i < size; i++)
+		{
+			out.writeLong(ids.get(i));
+			out.writeInt(customerIds.get(i));
+			out.writeInt(storeIds.get(i));
+			out.writeDouble(dateTimes.get(i));
+			out.writeInt(itemOffsets.get(i + 1));
+		}
+		for(int i = 0; i < itemCount; i++)
+			out.writeInt(productIndices.get(i));
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+
+		int savedSize = in.readInt();
+		int savedItemCount = in.readInt();
+		allocate(Math.max(savedSize, INITIAL_CAPACITY), Math.max(savedItemCount, INITIAL_CAPACITY));
+		for(int i = 0; i < savedSize; i++)
+		{
+			ids.put(i, in.readLong());
+			customerIds.put(i, in.readInt());
+			storeIds.put(i, in.readInt());
+			dateTimes.put(i, in.readDouble());
+			itemOffsets.put(i + 1, in.readInt());
+		}
+		for(int i = 0; i < savedItemCount; i++)
+			productIndices.put(i, in.readInt());
+		size = savedSize;
+		itemCount = savedItemCount;
+
+		index();
+	}
+}
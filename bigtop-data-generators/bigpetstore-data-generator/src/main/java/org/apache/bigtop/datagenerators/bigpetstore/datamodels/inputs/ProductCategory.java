@@ -39,6 +39,7 @@ public class ProductCategory implements Serializable
 	double triggerTransactionRate;
 	double triggerPurchaseRate;
 	ImmutableList<Product> products;
+	double averageQuantity;
 
 	public ProductCategory(String categoryLabel, Set<PetSpecies> species, Set<String> fieldNames,
 			boolean triggerTransaction, double dailyUsageRate, double amountUsedPerPetAverage,
@@ -55,6 +56,18 @@ public class ProductCategory implements Serializable
 		this.triggerTransactionRate = triggerTransactionRate;
 		this.triggerPurchaseRate = triggerPurchaseRate;
 		this.products = ImmutableList.copyOf(products);
+
+		double totalQuantity = 0.0;
+		int count = 0;
+		for(Product product : this.products)
+		{
+			if(!Double.isNaN(product.getQuantity()))
+			{
+				totalQuantity += product.getQuantity();
+				count++;
+			}
+		}
+		this.averageQuantity = count == 0 ? 0.0 : totalQuantity / count;
 	}
 
 	public String getCategoryLabel()
@@ -105,4 +118,12 @@ public class ProductCategory implements Serializable
 	{
 		return products;
 	}
+
+	/**
+	 * @return mean quantity of the category's products or 0 if none has a quantity
+	 */
+	public double getAverageQuantity()
+	{
+		return averageQuantity;
+	}
 }
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
 import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.bigtop.datagenerators.locations.LocationTable;
 import org.apache.bigtop.datagenerators.samplers.pdfs.ProbabilityDensityFunction;
 
 import com.google.common.collect.ImmutableMap;
@@ -39,26 +40,49 @@ public class CustomerLocationPDF implements ProbabilityDensityFunction<Location>
 	{
 		double lambda = 1.0 / averageDistance;
 
-		Map<Location, Double> zipcodeWeights = Maps.newHashMap();
+		LocationTable table = new LocationTable(zipcodeTable);
+		double[] weights = new double[table.size()];
+		table.distances(store.getLocation(), weights);
+
 		double totalWeight = 0.0;
-		for(Location record : zipcodeTable)
+		for(int i = 0; i < weights.length; i++)
 		{
-			double dist = record.distance(store.getLocation());
-
-			double weight = lambda * Math.exp(-1.0 * lambda * dist);
-			totalWeight += weight;
-			zipcodeWeights.put(record, weight);
+			weights[i] = lambda * Math.exp(-1.0 * lambda * weights[i]);
+			totalWeight += weights[i];
 		}
 
 		Map<Location, Double> pdf = Maps.newHashMap();
-		for(Location record : zipcodeTable)
+		for(int i = 0; i < weights.length; i++)
 		{
-			pdf.put(record, zipcodeWeights.get(record) / totalWeight);
+			pdf.put(table.get(i), weights[i] / totalWeight);
 		}
 
 		return ImmutableMap.copyOf(pdf);
 	}
 
+	/**
+	 * Finds the distance from a store within which customers fall with
+	 * probability 1 - epsilon.  With zipcodes spread evenly around the store,
+	 * the exponential distance kernel makes the distance Gamma(2, lambda)
+	 * distributed, so the cutoff solves exp(-lambda r) (1 + lambda r) = epsilon.
+	 */
+	public static double cutoffDistance(double averageDistance, double epsilon)
+	{
+		double logEpsilon = Math.log(epsilon);
+
+		// Newton's method on x - log(1 + x) + log(epsilon), which is convex
+		double x = 1.0 - 2.0 * logEpsilon;
+		for(int i = 0; i < 100; i++)
+		{
+			double step = (x - Math.log1p(x) + logEpsilon) * (1.0 + x) / x;
+			x -= step;
+			if(Math.abs(step) < 1e-12 * x)
+				break;
+		}
+
+		return x * averageDistance;
+	}
+
 	public double probability(Location record)
 	{
 		if(!this.pdf.containsKey(record))
@@ -22,15 +22,17 @@ import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.google.common.primitives.Ints;
+
 public class CustomerSampler implements Sampler<Customer>
 {
-	private final Sampler<Integer> idSampler;
+	private final Sampler<? extends Number> idSampler;
 	private final Sampler<Pair<String, String>> nameSampler;
 	private final Sampler<Store> storeSampler;
 	private final ConditionalSampler<Location, Store> locationSampler;
 
 
-	public CustomerSampler(Sampler<Integer> idSampler,
+	public CustomerSampler(Sampler<? extends Number> idSampler,
 			Sampler<Pair<String, String>> nameSampler,
 			Sampler<Store> storeSampler,
 			ConditionalSampler<Location, Store> locationSampler)
@@ -43,7 +45,7 @@ public class CustomerSampler implements Sampler<Customer>
 
 	public Customer sample() throws Exception
 	{
-		Integer id = idSampler.sample();
+		int id = Ints.checkedCast(idSampler.sample().longValue());
 		Pair<String, String> name = nameSampler.sample();
 		Store store = storeSampler.sample();
 		Location location = locationSampler.sample(store);
@@ -19,17 +19,19 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.InputDataRegistry;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
 import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.bigtop.datagenerators.locations.LocationIndex;
 import org.apache.bigtop.datagenerators.namegenerator.NameGenerator;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.pdfs.ProbabilityDensityFunction;
 import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.IdAllocator;
 import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.SequenceSampler;
 import org.apache.commons.lang3.tuple.Pair;
 
 import com.google.common.collect.Maps;
@@ -49,12 +51,22 @@ public class CustomerSamplerBuilder
 
 	protected ConditionalSampler<Location, Store> buildLocationSampler()
 	{
+		List<Location> zipcodeTable = inputData.getZipcodeTable();
+		LocationIndex zipcodeIndex = new LocationIndex(zipcodeTable);
+		double cutoffDistance = CustomerLocationPDF.cutoffDistance(Constants.AVERAGE_CUSTOMER_STORE_DISTANCE,
+				Constants.CUSTOMER_LOCATION_CUTOFF_EPSILON);
+
 		final Map<Store, Sampler<Location>> locationSamplers = Maps.newHashMap();
 		for(Store store : stores)
 		{
-			ProbabilityDensityFunction<Location> locationPDF = new CustomerLocationPDF(inputData.getZipcodeTable(),
+			// only zipcodes near the store carry noticeable probability
+			List<Location> zipcodes = zipcodeIndex.withinDistance(store.getLocation(), cutoffDistance);
+			if(zipcodes.isEmpty())
+				zipcodes = zipcodeTable;
+
+			ProbabilityDensityFunction<Location> locationPDF = new CustomerLocationPDF(zipcodes,
 					store, Constants.AVERAGE_CUSTOMER_STORE_DISTANCE);
-			Sampler<Location> locationSampler = RouletteWheelSampler.create(inputData.getZipcodeTable(), locationPDF, seedFactory);
+			Sampler<Location> locationSampler = RouletteWheelSampler.create(zipcodes, locationPDF, seedFactory);
 			locationSamplers.put(store, locationSampler);
 		}
 
@@ -71,8 +83,8 @@ public class CustomerSamplerBuilder
 	{
 		ProbabilityDensityFunction<Store> storePDF = new CustomerStorePDF(stores);
 
-		Sampler<Integer> idSampler = new SequenceSampler();
-		Sampler<Pair<String, String>> nameSampler = new NameGenerator(seedFactory);
+		Sampler<Long> idSampler = new IdAllocator();
+		Sampler<Pair<String, String>> nameSampler = new NameGenerator(InputDataRegistry.getNameTables(), seedFactory);
 		Sampler<Store> storeSampler = RouletteWheelSampler.create(stores, storePDF, seedFactory);
 
 		return new CustomerSampler(idSampler, nameSampler, storeSampler, buildLocationSampler());
@@ -43,21 +43,19 @@ public class ProductBuilderIterator implements Iterator<Product>
 		return productIterator != null && productIterator.hasNext();
 	}
 
-	@Override
-	public Product next()
+	static Product buildProduct(double basePrice, String productCategory, String[] fieldNames,
+			ProductFieldValue[] components)
 	{
-		Map<String, ProductFieldValue> productComponents = productIterator.next();
-
 		double sum = 0.0;
 		double product = 1.0;
 
 		Map<String, Object> productFields = Maps.newHashMap();
 
-		for(Map.Entry<String, ProductFieldValue> entry : productComponents.entrySet())
+		for(int i = 0; i < fieldNames.length; i++)
 		{
-			productFields.put(entry.getKey(), entry.getValue().getValue());
-			sum += entry.getValue().getAdd();
-			product *= entry.getValue().getMultiply();
+			productFields.put(fieldNames[i], components[i].getValue());
+			sum += components[i].getAdd();
+			product *= components[i].getMultiply();
 		}
 
 		double quantity = (Double) productFields.get(Constants.PRODUCT_QUANTITY);
@@ -71,6 +69,24 @@ public class ProductBuilderIterator implements Iterator<Product>
 		return new Product(productFields);
 	}
 
+	@Override
+	public Product next()
+	{
+		Map<String, ProductFieldValue> productComponents = productIterator.next();
+
+		String[] fieldNames = new String[productComponents.size()];
+		ProductFieldValue[] components = new ProductFieldValue[productComponents.size()];
+		int i = 0;
+		for(Map.Entry<String, ProductFieldValue> entry : productComponents.entrySet())
+		{
+			fieldNames[i] = entry.getKey();
+			components[i] = entry.getValue();
+			i++;
+		}
+
+		return buildProduct(basePrice, productCategory, fieldNames, components);
+	}
+
 	@Override
 	public void remove()
 	{
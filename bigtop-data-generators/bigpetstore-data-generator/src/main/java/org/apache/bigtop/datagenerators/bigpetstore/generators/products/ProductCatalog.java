@@ -0,0 +1,357 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.CompiledRule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.Rule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.RuleCompiler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+/**
+ * Random-access view of the products of a category.  Combination c of the
+ * field values is the mixed-radix number whose digits index each field's
+ * values, with the last field varying fastest, so product c is decoded on
+ * demand instead of stored.  Combinations matching an exclusion rule are
+ * dropped, using the rule compiled to field value codes where possible.
+ * The remaining ones are kept in a bitmap with a rank per word, so the
+ * i-th product is found in logarithmic time.  Products are numbered
+ * in the same order as {@link ProductIterator} produces them.
+ */
+public class ProductCatalog implements Iterable<Product>
+{
+	private static final byte STRING_VALUE = 0;
+	private static final byte DOUBLE_VALUE = 1;
+
+	private final String productCategory;
+	private final double basePrice;
+	private final String[] fieldNames;
+	private final List<List<ProductFieldValue>> fieldValues;
+	private final long combinations;
+
+	private final long[] valid;
+	private final int[] ranks;
+	private final int size;
+
+	public ProductCatalog(Map<String, Collection<ProductFieldValue>> productFieldValues, Rule exclusionRule,
+			double basePrice, String productCategory)
+	{
+		this.productCategory = productCategory;
+		this.basePrice = basePrice;
+
+		fieldNames = new String[productFieldValues.size()];
+		ImmutableList.Builder<List<ProductFieldValue>> fieldValuesBuilder = ImmutableList.builder();
+		long count = productFieldValues.isEmpty() ? 0 : 1;
+		int f = 0;
+		for(Map.Entry<String, Collection<ProductFieldValue>> entry : productFieldValues.entrySet())
+		{
+			fieldNames[f] = entry.getKey();
+			List<ProductFieldValue> values = ImmutableList.copyOf(entry.getValue());
+			fieldValuesBuilder.add(values);
+			count *= values.size();
+			f++;
+		}
+		fieldValues = fieldValuesBuilder.build();
+
+		if(count > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Category " + productCategory + " has " + count
+					+ " field value combinations, more than can be indexed");
+
+		combinations = count;
+		valid = new long[(int) ((combinations + 63) >>> 6)];
+		ranks = new int[valid.length];
+
+		CompiledRule compiled = compileRule(exclusionRule);
+		if(compiled != null)
+			markValid(compiled);
+		else
+			markValid(exclusionRule);
+
+		size = rank();
+	}
+
+	private ProductCatalog(String productCategory, double basePrice, String[] fieldNames,
+			List<List<ProductFieldValue>> fieldValues, long[] valid) throws IOException
+	{
+		this.productCategory = productCategory;
+		this.basePrice = basePrice;
+		this.fieldNames = fieldNames;
+		this.fieldValues = fieldValues;
+		this.valid = valid;
+
+		long count = fieldNames.length == 0 ? 0 : 1;
+		for(List<ProductFieldValue> values : fieldValues)
+			count *= values.size();
+		if(count > Integer.MAX_VALUE || valid.length != (int) ((count + 63) >>> 6))
+			throw new IOException("Saved catalog of category " + productCategory + " has "
+					+ valid.length + " bitmap words for " + count + " combinations");
+
+		combinations = count;
+		ranks = new int[valid.length];
+		size = rank();
+	}
+
+	private int rank()
+	{
+		int rank = 0;
+		for(int word = 0; word < valid.length; word++)
+		{
+			ranks[word] = rank;
+			rank += Long.bitCount(valid[word]);
+		}
+
+		return rank;
+	}
+
+	private CompiledRule compileRule(Rule exclusionRule)
+	{
+		List<List<Object>> values = Lists.newArrayList();
+		for(List<ProductFieldValue> fieldValueList : fieldValues)
+		{
+			List<Object> fieldValueObjects = Lists.newArrayList();
+			for(ProductFieldValue fieldValue : fieldValueList)
+				fieldValueObjects.add(fieldValue.getValue());
+			values.add(fieldValueObjects);
+		}
+
+		// set by ProductBuilderIterator.buildProduct over the field values
+		Map<String, Object> constantFields = Collections.<String, Object>singletonMap(Constants.PRODUCT_CATEGORY,
+				productCategory);
+		Set<String> opaqueFields = ImmutableSet.of(Constants.PRODUCT_PRICE, Constants.PRODUCT_UNIT_PRICE);
+
+		RuleCompiler compiler = new RuleCompiler(Arrays.asList(fieldNames), values, constantFields, opaqueFields);
+		return compiler.compile(exclusionRule);
+	}
+
+	private void markValid(CompiledRule exclusionRule)
+	{
+		if(exclusionRule == CompiledRule.TRUE)
+			return;
+
+		// odometer over the field value codes, last field fastest
+		int[] codes = new int[fieldNames.length];
+		for(long c = 0; c < combinations; c++)
+		{
+			if(!exclusionRule.matches(codes))
+				valid[(int) (c >>> 6)] |= 1L << c;
+
+			for(int f = codes.length - 1; f >= 0; f--)
+			{
+				if(++codes[f] < fieldValues.get(f).size())
+					break;
+				codes[f] = 0;
+			}
+		}
+	}
+
+	private void markValid(Rule exclusionRule)
+	{
+		for(long c = 0; c < combinations; c++)
+		{
+			if(!exclusionRule.ruleMatches(decode(c)))
+				valid[(int) (c >>> 6)] |= 1L << c;
+		}
+	}
+
+	private Product decode(long combination)
+	{
+		ProductFieldValue[] components = new ProductFieldValue[fieldNames.length];
+		for(int f = fieldNames.length - 1; f >= 0; f--)
+		{
+			int radix = fieldValues.get(f).size();
+			components[f] = fieldValues.get(f).get((int) (combination % radix));
+			combination /= radix;
+		}
+
+		return ProductBuilderIterator.buildProduct(basePrice, productCategory, fieldNames, components);
+	}
+
+	/**
+	 * @return index of the combination holding the given product
+	 */
+	private long select(int id)
+	{
+		// last word whose rank is at most id
+		int low = 0;
+		int high = ranks.length - 1;
+		while(low < high)
+		{
+			int mid = (low + high + 1) >>> 1;
+			if(ranks[mid] <= id)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+
+		long bits = valid[low];
+		for(int skip = id - ranks[low]; skip > 0; skip--)
+			bits &= bits - 1;
+
+		return ((long) low << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public long getCombinations()
+	{
+		return combinations;
+	}
+
+	public boolean isValid(long combination)
+	{
+		return (valid[(int) (combination >>> 6)] & (1L << (combination & 63))) != 0;
+	}
+
+	public Product get(int id)
+	{
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("Product " + id + " of " + size);
+
+		return decode(select(id)).withId(id);
+	}
+
+	public Product sample(Random rng)
+	{
+		return get(rng.nextInt(size));
+	}
+
+	/**
+	 * Saves the field values and the valid combinations, so the catalog can
+	 * be read back without evaluating the exclusion rule again.  Field values
+	 * must be strings or doubles.
+	 */
+	public void write(DataOutput output) throws IOException
+	{
+		output.writeUTF(productCategory);
+		output.writeDouble(basePrice);
+
+		output.writeInt(fieldNames.length);
+		for(int f = 0; f < fieldNames.length; f++)
+		{
+			output.writeUTF(fieldNames[f]);
+			output.writeInt(fieldValues.get(f).size());
+			for(ProductFieldValue fieldValue : fieldValues.get(f))
+			{
+				Object value = fieldValue.getValue();
+				if(value instanceof String)
+				{
+					output.writeByte(STRING_VALUE);
+					output.writeUTF((String) value);
+				}
+				else if(value instanceof Double)
+				{
+					output.writeByte(DOUBLE_VALUE);
+					output.writeDouble((Double) value);
+				}
+				else
+				{
+					throw new IOException("Unable to save value " + value + " of field " + fieldNames[f]
+							+ " in category " + productCategory);
+				}
+				output.writeDouble(fieldValue.getAdd());
+				output.writeDouble(fieldValue.getMultiply());
+			}
+		}
+
+		output.writeInt(valid.length);
+		for(long word : valid)
+			output.writeLong(word);
+	}
+
+	public static ProductCatalog read(DataInput input) throws IOException
+	{
+		String productCategory = input.readUTF();
+		double basePrice = input.readDouble();
+
+		String[] fieldNames = new String[input.readInt()];
+		ImmutableList.Builder<List<ProductFieldValue>> fieldValues = ImmutableList.builder();
+		for(int f = 0; f < fieldNames.length; f++)
+		{
+			fieldNames[f] = input.readUTF();
+			ProductFieldValue[] values = new ProductFieldValue[input.readInt()];
+			for(int i = 0; i < values.length; i++)
+			{
+				byte type = input.readByte();
+				Object value;
+				if(type == STRING_VALUE)
+					value = input.readUTF();
+				else if(type == DOUBLE_VALUE)
+					value = input.readDouble();
+				else
+					throw new IOException("Unknown type " + type + " of a value of field " + fieldNames[f]);
+
+				values[i] = new ProductFieldValue(value, input.readDouble(), input.readDouble());
+			}
+			fieldValues.add(ImmutableList.copyOf(values));
+		}
+
+		long[] valid = new long[input.readInt()];
+		for(int word = 0; word < valid.length; word++)
+			valid[word] = input.readLong();
+
+		return new ProductCatalog(productCategory, basePrice, fieldNames, fieldValues.build(), valid);
+	}
+
+	@Override
+	public Iterator<Product> iterator()
+	{
+		return new Iterator<Product>()
+				{
+					int next = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return next < size;
+					}
+
+					@Override
+					public Product next()
+					{
+						if(next >= size)
+							throw new NoSuchElementException();
+
+						return get(next++);
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException("ProductCatalog does not support remove()");
+					}
+				};
+	}
+}
@@ -0,0 +1,389 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.PetSpecies;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.AlwaysTrueRule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.AndRule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.FieldPredicate;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.NotRule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.OrRule;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.Rule;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Loads product categories from a declarative JSON catalog file instead of
+ * one of the built-in collections.  A catalog looks like:
+ *
+ * <pre>
+ * { "categories" : [ {
+ *     "category" : "dry dog food",
+ *     "species" : [ "DOG" ],
+ *     "triggerTransaction" : true,
+ *     "dailyUsageRate" : 2.0,
+ *     "amountUsedPerPetAverage" : 0.25,
+ *     "amountUsedPerPetVariance" : 0.1,
+ *     "triggerTransactionRate" : 2.0,
+ *     "triggerPurchaseRate" : 7.0,
+ *     "basePrice" : 2.0,
+ *     "fields" : {
+ *       "brand" : [ [ "Wellfed", 0.0, 1.0 ], [ "Happy Pup", 0.67, 1.0 ] ],
+ *       "quantity" : [ [ 4.5, 0.0, 4.5 ], [ 15.0, 0.0, 15.0 ] ] },
+ *     "exclusions" : [
+ *       { "and" : [ { "field" : "brand", "in" : [ "Wellfed" ] },
+ *                   { "not" : { "field" : "flavor", "in" : [ "Chicken" ] } } ] } ]
+ * } ] }
+ * </pre>
+ *
+ * Each field value is given as [value, add, multiply], matching
+ * {@link ProductFieldValue}.  Exclusion rules are built from "field"/"in",
+ * "and", "or", "not" and "always" nodes.
+ *
+ * Building the categories evaluates the exclusion rules over every
+ * combination of field values, so each category's field values and valid
+ * combinations ({@link ProductCatalog#write}) are cached next to the catalog
+ * file in a compressed binary form and reused for as long as the catalog's
+ * contents are unchanged.
+ */
+public class ProductCatalogLoader
+{
+	private static final int CACHE_VERSION = 3;
+
+	// a different build may evaluate the exclusion rules differently
+	private static final String BUILD_VERSION = String.valueOf(
+			ProductCatalogLoader.class.getPackage().getImplementationVersion());
+
+	File catalogFile;
+	File cacheFile;
+
+	public ProductCatalogLoader(File catalogFile)
+	{
+		this(catalogFile, new File(catalogFile.getPath() + ".cache"));
+	}
+
+	public ProductCatalogLoader(File catalogFile, File cacheFile)
+	{
+		this.catalogFile = catalogFile;
+		this.cacheFile = cacheFile;
+	}
+
+	public File getCacheFile()
+	{
+		return cacheFile;
+	}
+
+	/**
+	 * @throws IOException if the catalog can't be read or the cache can't be
+	 *   written.  Use {@link #load(boolean)} to skip writing the cache.
+	 */
+	public List<ProductCategory> load() throws IOException
+	{
+		return load(true);
+	}
+
+	/**
+	 * @param writeCache whether to cache the categories if they had to be
+	 *   built from the catalog
+	 */
+	public List<ProductCategory> load(boolean writeCache) throws IOException
+	{
+		byte[] contents = Files.toByteArray(catalogFile);
+		String hash = Hashing.sha1().hashBytes(contents).toString();
+
+		List<ProductCategory> categories = readCache(hash);
+		if(categories != null)
+			return categories;
+
+		categories = new ArrayList<ProductCategory>();
+		List<ProductCatalog> catalogs = new ArrayList<ProductCatalog>();
+		for(ProductCategoryBuilder builder : parseBuilders(new StringReader(new String(contents, Charsets.UTF_8))))
+		{
+			ProductCatalog catalog = builder.buildCatalog();
+			catalogs.add(catalog);
+			categories.add(builder.build(catalog));
+		}
+
+		if(writeCache)
+			writeCache(hash, categories, catalogs);
+
+		return categories;
+	}
+
+	private List<ProductCategory> readCache(String hash)
+	{
+		if(!cacheFile.exists())
+			return null;
+
+		try
+		{
+			InputStream stream = new FileInputStream(cacheFile);
+			try
+			{
+				stream = new GZIPInputStream(new BufferedInputStream(stream));
+				DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+				if(input.readInt() != CACHE_VERSION || !BUILD_VERSION.equals(input.readUTF())
+						|| !hash.equals(input.readUTF()))
+					return null;
+
+				int nCategories = input.readInt();
+				List<ProductCategory> categories = new ArrayList<ProductCategory>();
+				for(int i = 0; i < nCategories; i++)
+				{
+					ProductCategoryBuilder builder = new ProductCategoryBuilder();
+					builder.setCategory(input.readUTF());
+					int nSpecies = input.readInt();
+					for(int j = 0; j < nSpecies; j++)
+						builder.addApplicableSpecies(PetSpecies.valueOf(input.readUTF()));
+					builder.setTriggerTransaction(input.readBoolean());
+					builder.setDailyUsageRate(input.readDouble());
+					builder.setAmountUsedPetPetAverage(input.readDouble());
+					builder.setAmountUsedPetPetVariance(input.readDouble());
+					builder.setTriggerTransactionRate(input.readDouble());
+					builder.setTriggerPurchaseRate(input.readDouble());
+
+					categories.add(builder.build(ProductCatalog.read(input)));
+				}
+
+				return categories;
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+		catch(Exception e)
+		{
+			// a stale or corrupt cache is rebuilt from the catalog
+			return null;
+		}
+	}
+
+	private void writeCache(String hash, List<ProductCategory> categories, List<ProductCatalog> catalogs)
+			throws IOException
+	{
+		File tmpFile = new File(cacheFile.getPath() + ".tmp");
+		OutputStream stream = new FileOutputStream(tmpFile);
+		try
+		{
+			stream = new GZIPOutputStream(new BufferedOutputStream(stream));
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+
+			output.writeInt(CACHE_VERSION);
+			output.writeUTF(BUILD_VERSION);
+			output.writeUTF(hash);
+
+			output.writeInt(categories.size());
+			for(int i = 0; i < categories.size(); i++)
+			{
+				ProductCategory category = categories.get(i);
+				output.writeUTF(category.getCategoryLabel());
+				output.writeInt(category.getApplicableSpecies().size());
+				for(PetSpecies species : category.getApplicableSpecies())
+					output.writeUTF(species.name());
+				output.writeBoolean(category.getTriggerTransaction());
+				output.writeDouble(category.getDailyUsageRate());
+				output.writeDouble(category.getBaseAmountUsedAverage());
+				output.writeDouble(category.getBaseAmountUsedVariance());
+				output.writeDouble(category.getTransactionTriggerRate());
+				output.writeDouble(category.getPurchaseTriggerRate());
+
+				catalogs.get(i).write(output);
+			}
+
+			output.flush();
+		}
+		finally
+		{
+			stream.close();
+		}
+
+		if(!tmpFile.renameTo(cacheFile))
+		{
+			cacheFile.delete();
+			if(!tmpFile.renameTo(cacheFile))
+				throw new IOException("Unable to move " + tmpFile + " to " + cacheFile);
+		}
+	}
+
+	public List<ProductCategory> parse(Reader reader)
+	{
+		List<ProductCategory> categories = new ArrayList<ProductCategory>();
+		for(ProductCategoryBuilder builder : parseBuilders(reader))
+		{
+			categories.add(builder.build());
+		}
+
+		return categories;
+	}
+
+	private List<ProductCategoryBuilder> parseBuilders(Reader reader)
+	{
+		JsonElement root = new JsonParser().parse(reader);
+		if(!root.isJsonObject() || !root.getAsJsonObject().has("categories"))
+			throw new IllegalArgumentException("Product catalog must be an object with a \"categories\" array");
+
+		List<ProductCategoryBuilder> builders = new ArrayList<ProductCategoryBuilder>();
+		for(JsonElement category : root.getAsJsonObject().getAsJsonArray("categories"))
+		{
+			builders.add(parseCategory(category.getAsJsonObject()));
+		}
+
+		return builders;
+	}
+
+	private ProductCategoryBuilder parseCategory(JsonObject json)
+	{
+		ProductCategoryBuilder builder = new ProductCategoryBuilder();
+
+		String label = json.get("category").getAsString();
+		builder.setCategory(label);
+
+		for(JsonElement species : json.getAsJsonArray("species"))
+		{
+			builder.addApplicableSpecies(PetSpecies.valueOf(species.getAsString().toUpperCase()));
+		}
+
+		if(json.has("triggerTransaction"))
+			builder.setTriggerTransaction(json.get("triggerTransaction").getAsBoolean());
+		if(json.has("dailyUsageRate"))
+			builder.setDailyUsageRate(json.get("dailyUsageRate").getAsDouble());
+		if(json.has("amountUsedPerPetAverage"))
+			builder.setAmountUsedPetPetAverage(json.get("amountUsedPerPetAverage").getAsDouble());
+		if(json.has("amountUsedPerPetVariance"))
+			builder.setAmountUsedPetPetVariance(json.get("amountUsedPerPetVariance").getAsDouble());
+		if(json.has("triggerTransactionRate"))
+			builder.setTriggerTransactionRate(json.get("triggerTransactionRate").getAsDouble());
+		if(json.has("triggerPurchaseRate"))
+			builder.setTriggerPurchaseRate(json.get("triggerPurchaseRate").getAsDouble());
+		if(json.has("basePrice"))
+			builder.setBasePrice(json.get("basePrice").getAsDouble());
+
+		for(Map.Entry<String, JsonElement> field : json.getAsJsonObject("fields").entrySet())
+		{
+			JsonArray jsonValues = field.getValue().getAsJsonArray();
+			ProductFieldValue[] values = new ProductFieldValue[jsonValues.size()];
+			for(int i = 0; i < values.length; i++)
+			{
+				values[i] = parseFieldValue(label, field.getKey(), jsonValues.get(i));
+			}
+			builder.addPropertyValues(field.getKey(), values);
+		}
+
+		if(json.has("exclusions"))
+		{
+			for(JsonElement rule : json.getAsJsonArray("exclusions"))
+			{
+				builder.addExclusionRule(parseRule(rule));
+			}
+		}
+
+		return builder;
+	}
+
+	private ProductFieldValue parseFieldValue(String category, String fieldName, JsonElement json)
+	{
+		if(!json.isJsonArray() || json.getAsJsonArray().size() != 3)
+			throw new IllegalArgumentException("Value of field " + fieldName + " in category " + category +
+					" must be [value, add, multiply] but was " + json);
+
+		JsonArray triple = json.getAsJsonArray();
+
+		return new ProductFieldValue(parseValue(triple.get(0)), triple.get(1).getAsDouble(), triple.get(2).getAsDouble());
+	}
+
+	// numbers are read as doubles, both in field values and in rules
+	private Object parseValue(JsonElement json)
+	{
+		JsonPrimitive value = json.getAsJsonPrimitive();
+		return value.isNumber() ? (Object) value.getAsDouble() : value.getAsString();
+	}
+
+	private Rule parseRule(JsonElement element)
+	{
+		if(!element.isJsonObject())
+			throw new IllegalArgumentException("Exclusion rule must be an object but was " + element);
+
+		JsonObject json = element.getAsJsonObject();
+		if(json.has("field"))
+		{
+			List<Object> values = new ArrayList<Object>();
+			for(JsonElement value : json.getAsJsonArray("in"))
+			{
+				values.add(parseValue(value));
+			}
+			return new FieldPredicate(json.get("field").getAsString(), values);
+		}
+		else if(json.has("not"))
+		{
+			return new NotRule(parseRule(json.get("not")));
+		}
+		else if(json.has("always"))
+		{
+			Rule rule = new AlwaysTrueRule();
+			return json.get("always").getAsBoolean() ? rule : new NotRule(rule);
+		}
+		else if(json.has("and") || json.has("or"))
+		{
+			boolean and = json.has("and");
+			JsonArray jsonRules = json.getAsJsonArray(and ? "and" : "or");
+			Rule[] rules = new Rule[jsonRules.size()];
+			for(int i = 0; i < rules.length; i++)
+			{
+				rules[i] = parseRule(jsonRules.get(i));
+			}
+
+			if(!and)
+				return new OrRule(rules);
+
+			if(rules.length < 2)
+				throw new IllegalArgumentException("\"and\" rule needs at least two rules but was " + element);
+
+			Rule[] rest = new Rule[rules.length - 2];
+			System.arraycopy(rules, 2, rest, 0, rest.length);
+			return new AndRule(rules[0], rules[1], rest);
+		}
+
+		throw new IllegalArgumentException("Unknown exclusion rule " + element);
+	}
+}
@@ -17,7 +17,6 @@ package org.apache.bigtop.datagenerators.bigpetstore.generators.products;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -129,7 +128,7 @@ public class ProductCategoryBuilder
 	}
 
 
-	protected List<Product> generateProducts()
+	protected Rule combineExclusionRules()
 	{
 		Rule combinedRules = new NotRule(new AlwaysTrueRule());
 		if(exclusionRules.size() == 1)
@@ -141,12 +140,28 @@ public class ProductCategoryBuilder
 			 combinedRules = new OrRule(exclusionRules.toArray(new Rule[] {}));
 		}
 
-		Iterator<Product> productIterator = new ProductIterator(productFieldValues, combinedRules,
-				basePrice, categoryLabel);
+		return combinedRules;
+	}
+
+	/**
+	 * Builds a random-access catalog of the generated products without
+	 * materializing them.  Products added explicitly are not included.
+	 */
+	public ProductCatalog buildCatalog()
+	{
+		return new ProductCatalog(productFieldValues, combineExclusionRules(), basePrice, categoryLabel);
+	}
+
+	protected List<Product> generateProducts()
+	{
+		return generateProducts(buildCatalog());
+	}
 
-		while(productIterator.hasNext())
+	protected List<Product> generateProducts(ProductCatalog catalog)
+	{
+		for(Product product : catalog)
 		{
-			products.add(productIterator.next());
+			products.add(product);
 		}
 
 		return products;
@@ -180,11 +195,28 @@ public class ProductCategoryBuilder
 
 	public ProductCategory build()
 	{
-		List<Product> products = generateProducts();
+		return build(buildCatalog());
+	}
+
+	/**
+	 * Builds the category with the products of a catalog from
+	 * {@link #buildCatalog()}, which may have been saved and read back.
+	 */
+	public ProductCategory build(ProductCatalog catalog)
+	{
+		List<Product> products = generateProducts(catalog);
 
+		// products are identified by their index within the category
 		Set<String> fieldNames = Sets.newHashSet();
-		for(Product product : products)
+		for(int i = 0; i < products.size(); i++)
 		{
+			Product product = products.get(i);
+			if(product.getId() != i)
+			{
+				product = product.withId(i);
+				products.set(i, product);
+			}
+
 			fieldNames.addAll(product.getFieldNames());
 		}
 
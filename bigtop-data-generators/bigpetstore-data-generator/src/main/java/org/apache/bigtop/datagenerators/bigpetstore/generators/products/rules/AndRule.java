@@ -35,16 +35,15 @@ public class AndRule implements Rule
 	@Override
 	public boolean ruleMatches(Product product) throws IllegalArgumentException
 	{
-		boolean matches = true;
 		for(Rule rule : rules)
 		{
 			if(! rule.ruleMatches(product))
 			{
-				matches = false;
+				return false;
 			}
 		}
 
-		return matches;
+		return true;
 	}
 
 }
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules;
+
+/**
+ * A {@link Rule} compiled by {@link RuleCompiler} into a predicate over the
+ * value codes of a product's fields, where codes[f] is the index of the
+ * product's value in the list of values of field f.
+ */
+public abstract class CompiledRule
+{
+	public static final CompiledRule TRUE = new Constant(true);
+	public static final CompiledRule FALSE = new Constant(false);
+
+	public abstract boolean matches(int[] codes);
+
+	static class Constant extends CompiledRule
+	{
+		final boolean value;
+
+		Constant(boolean value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			return value;
+		}
+	}
+
+	static class FieldIn extends CompiledRule
+	{
+		final int field;
+		final long[] mask;
+
+		FieldIn(int field, long[] mask)
+		{
+			this.field = field;
+			this.mask = mask;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			int code = codes[field];
+			return (mask[code >>> 6] & (1L << code)) != 0;
+		}
+	}
+
+	static class Not extends CompiledRule
+	{
+		final CompiledRule rule;
+
+		Not(CompiledRule rule)
+		{
+			this.rule = rule;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			return !rule.matches(codes);
+		}
+	}
+
+	static class And extends CompiledRule
+	{
+		final CompiledRule[] rules;
+
+		And(CompiledRule[] rules)
+		{
+			this.rules = rules;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			for(CompiledRule rule : rules)
+			{
+				if(!rule.matches(codes))
+					return false;
+			}
+
+			return true;
+		}
+	}
+
+	static class Or extends CompiledRule
+	{
+		final CompiledRule[] rules;
+
+		Or(CompiledRule[] rules)
+		{
+			this.rules = rules;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			for(CompiledRule rule : rules)
+			{
+				if(rule.matches(codes))
+					return true;
+			}
+
+			return false;
+		}
+	}
+
+	static class Fail extends CompiledRule
+	{
+		final String message;
+
+		Fail(String message)
+		{
+			this.message = message;
+		}
+
+		@Override
+		public boolean matches(int[] codes)
+		{
+			throw new IllegalArgumentException(message);
+		}
+	}
+}
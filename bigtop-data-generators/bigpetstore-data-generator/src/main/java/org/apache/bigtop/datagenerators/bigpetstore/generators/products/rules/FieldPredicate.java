@@ -23,12 +23,21 @@ import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 public class FieldPredicate implements Rule
 {
 	String fieldName;
-	Collection<String> allowedValues;
+	Collection<?> allowedValues;
 
 	public FieldPredicate(String fieldName, String ... allowedValues)
+	{
+		this(fieldName, Arrays.asList(allowedValues));
+	}
+
+	/**
+	 * @param allowedValues compared with equals(), so numeric values must have
+	 *   the same type as the field's values
+	 */
+	public FieldPredicate(String fieldName, Collection<?> allowedValues)
 	{
 		this.fieldName = fieldName;
-		this.allowedValues = Arrays.asList(allowedValues);
+		this.allowedValues = allowedValues;
 	}
 
 	@Override
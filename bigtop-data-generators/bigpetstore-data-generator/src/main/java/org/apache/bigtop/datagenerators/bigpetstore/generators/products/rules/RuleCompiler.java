@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compiles a {@link Rule} tree for products whose fields take values from
+ * known lists.  Field predicates become bitmasks over value codes, rules on
+ * fields with a single value fold to constants and the resulting And and
+ * Or nodes short-circuit.
+ */
+public class RuleCompiler
+{
+	private final List<String> fieldNames;
+	private final List<? extends List<?>> fieldValues;
+	private final Map<String, ?> constantFields;
+	private final Set<String> opaqueFields;
+
+	/**
+	 * @param fieldNames fields whose values are given as codes
+	 * @param fieldValues values of each coded field, in code order
+	 * @param constantFields fields with the same value on every product
+	 * @param opaqueFields fields computed from others that rules cannot be
+	 *   compiled against
+	 */
+	public RuleCompiler(List<String> fieldNames, List<? extends List<?>> fieldValues,
+			Map<String, ?> constantFields, Set<String> opaqueFields)
+	{
+		this.fieldNames = fieldNames;
+		this.fieldValues = fieldValues;
+		this.constantFields = constantFields;
+		this.opaqueFields = opaqueFields;
+	}
+
+	/**
+	 * @return compiled rule or null if the rule cannot be compiled
+	 */
+	public CompiledRule compile(Rule rule)
+	{
+		if(rule instanceof AlwaysTrueRule)
+			return CompiledRule.TRUE;
+		if(rule instanceof FieldPredicate)
+			return compileField((FieldPredicate) rule);
+		if(rule instanceof NotRule)
+			return not(compile(((NotRule) rule).rule));
+		if(rule instanceof AndRule)
+			return combine(((AndRule) rule).rules, true);
+		if(rule instanceof OrRule)
+			return combine(Lists.newArrayList(((OrRule) rule).rules), false);
+
+		return null;
+	}
+
+	private CompiledRule compileField(FieldPredicate predicate)
+	{
+		String fieldName = predicate.fieldName;
+
+		if(constantFields.containsKey(fieldName))
+		{
+			boolean matches = predicate.allowedValues.contains(constantFields.get(fieldName));
+			return matches ? CompiledRule.TRUE : CompiledRule.FALSE;
+		}
+
+		if(opaqueFields.contains(fieldName))
+			return null;
+
+		int field = fieldNames.indexOf(fieldName);
+		if(field < 0)
+			return new CompiledRule.Fail("Products do not contain field name (" + fieldName + ")");
+
+		List<?> values = fieldValues.get(field);
+		long[] mask = new long[(values.size() + 63) >>> 6];
+		int matching = 0;
+		for(int code = 0; code < values.size(); code++)
+		{
+			if(predicate.allowedValues.contains(values.get(code)))
+			{
+				mask[code >>> 6] |= 1L << code;
+				matching++;
+			}
+		}
+
+		if(matching == 0)
+			return CompiledRule.FALSE;
+		if(matching == values.size())
+			return CompiledRule.TRUE;
+
+		return new CompiledRule.FieldIn(field, mask);
+	}
+
+	private CompiledRule not(CompiledRule rule)
+	{
+		if(rule == null)
+			return null;
+		if(rule == CompiledRule.TRUE)
+			return CompiledRule.FALSE;
+		if(rule == CompiledRule.FALSE)
+			return CompiledRule.TRUE;
+		if(rule instanceof CompiledRule.Not)
+			return ((CompiledRule.Not) rule).rule;
+
+		return new CompiledRule.Not(rule);
+	}
+
+	private CompiledRule combine(List<Rule> rules, boolean conjunction)
+	{
+		// the identity of the operation is dropped, its absorbing value decides
+		CompiledRule identity = conjunction ? CompiledRule.TRUE : CompiledRule.FALSE;
+		CompiledRule absorbing = conjunction ? CompiledRule.FALSE : CompiledRule.TRUE;
+
+		List<CompiledRule> compiled = Lists.newArrayList();
+		boolean compilable = true;
+		for(Rule rule : rules)
+		{
+			CompiledRule child = compile(rule);
+			if(child == null)
+				compilable = false;
+			else if(child == absorbing)
+			{
+				// children after it are never evaluated, but a failing one
+				// before it still throws when the rule is matched
+				if(!mayFail(compiled))
+					return absorbing;
+				compiled.add(absorbing);
+				break;
+			}
+			else if(child != identity)
+				compiled.add(child);
+		}
+
+		if(!compilable)
+			return null;
+		if(compiled.isEmpty())
+			return identity;
+		if(compiled.size() == 1)
+			return compiled.get(0);
+
+		CompiledRule[] children = compiled.toArray(new CompiledRule[compiled.size()]);
+		return conjunction ? new CompiledRule.And(children) : new CompiledRule.Or(children);
+	}
+
+	private static boolean mayFail(Iterable<CompiledRule> rules)
+	{
+		for(CompiledRule rule : rules)
+		{
+			if(mayFail(rule))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static boolean mayFail(CompiledRule rule)
+	{
+		if(rule instanceof CompiledRule.Fail)
+			return true;
+		if(rule instanceof CompiledRule.Not)
+			return mayFail(((CompiledRule.Not) rule).rule);
+		if(rule instanceof CompiledRule.And)
+			return mayFail(Arrays.asList(((CompiledRule.And) rule).rules));
+		if(rule instanceof CompiledRule.Or)
+			return mayFail(Arrays.asList(((CompiledRule.Or) rule).rules));
+
+		return false;
+	}
+}
@@ -15,7 +15,9 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
@@ -25,6 +27,11 @@ import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 import com.google.common.collect.Maps;
 
+/**
+ * Products are encoded once as one int code per field, so the weight of a
+ * product pair is a sum over primitive arrays.  Each row of pair weights is
+ * computed once and normalized by its own sum.
+ */
 public class MarkovModelProductCategorySampler implements Sampler<MarkovModel<Product>>
 {
 	final ProductCategory productCategory;
@@ -32,8 +39,11 @@ public class MarkovModelProductCategorySampler implements Sampler<MarkovModel<Pr
 	final Sampler<Double> loopbackWeightSampler;
 
 	final Map<String, Double> fieldWeights;
-	Map<String, Double> fieldSimilarityWeights;
-	double loopbackWeight;
+
+	final List<Product> products;
+	final String[] fieldNames;
+	final double[] fieldWeightArray;
+	final int[][] fieldCodes;
 
 	public MarkovModelProductCategorySampler(ProductCategory productCategory,
 			Map<String, Double> fieldWeights, Sampler<Double> fieldSimilarityWeightSampler,
@@ -44,76 +54,105 @@ public class MarkovModelProductCategorySampler implements Sampler<MarkovModel<Pr
 		this.fieldSimilarityWeightSampler = fieldSimilarityWeightSampler;
 		this.fieldWeights = fieldWeights;
 		this.loopbackWeightSampler = loopbackWeightSampler;
-	}
 
-	protected void generateWeights() throws Exception
-	{
-		fieldSimilarityWeights = Maps.newHashMap();
+		products = productCategory.getProducts();
+		fieldNames = productCategory.getFieldNames().toArray(new String[0]);
+		fieldWeightArray = new double[fieldNames.length];
+		fieldCodes = new int[products.size()][fieldNames.length];
 
-		for(String fieldName : productCategory.getFieldNames())
+		for(int f = 0; f < fieldNames.length; f++)
 		{
-			fieldSimilarityWeights.put(fieldName,fieldSimilarityWeightSampler.sample());
-		}
+			fieldWeightArray[f] = fieldWeights.get(fieldNames[f]);
 
-		loopbackWeight = loopbackWeightSampler.sample();
+			// equal field values share a code, missing values included
+			Map<Object, Integer> codes = Maps.newHashMap();
+			for(int p = 0; p < products.size(); p++)
+			{
+				Object value = products.get(p).getFieldValue(fieldNames[f]);
+				Integer code = codes.get(value);
+				if(code == null)
+				{
+					code = codes.size();
+					codes.put(value, code);
+				}
+				fieldCodes[p][f] = code;
+			}
+		}
 	}
 
-	protected double productPairWeight(Product product1, Product product2)
+	/**
+	 * Draws this profile's similarity and loopback weights and returns the
+	 * task that builds the model from them.  Only drawing the weights touches
+	 * the shared samplers, so the returned tasks can run concurrently.
+	 */
+	public Callable<MarkovModel<Product>> prepare() throws Exception
 	{
-		double weightSum = 0.0;
-		for(String fieldName : productCategory.getFieldNames())
+		final double[] sameWeights = new double[fieldNames.length];
+		final double[] differentWeights = new double[fieldNames.length];
+		for(int f = 0; f < fieldNames.length; f++)
 		{
-			double fieldWeight = this.fieldWeights.get(fieldName);
+			double similarity = fieldSimilarityWeightSampler.sample();
+			sameWeights[f] = fieldWeightArray[f] * similarity;
+			differentWeights[f] = fieldWeightArray[f] * (1.0 - similarity);
+		}
 
-			if(product1.getFieldValue(fieldName).equals(product2.getFieldValue(fieldName)))
-			{
-				fieldWeight *= this.fieldSimilarityWeights.get(fieldName);
-			}
-			else
-			{
-				fieldWeight *= (1.0 - this.fieldSimilarityWeights.get(fieldName));
-			}
+		final double loopbackWeight = loopbackWeightSampler.sample();
 
-			weightSum += fieldWeight;
-		}
-		return weightSum;
+		return new Callable<MarkovModel<Product>>()
+				{
+					public MarkovModel<Product> call()
+					{
+						return buildModel(sameWeights, differentWeights, loopbackWeight);
+					}
+				};
 	}
 
-	public MarkovModel<Product> sample() throws Exception
+	protected MarkovModel<Product> buildModel(double[] sameWeights, double[] differentWeights, double loopbackWeight)
 	{
-		generateWeights();
-
 		MarkovModelBuilder<Product> builder = new MarkovModelBuilder<Product>();
 
-		for(Product product1 : productCategory.getProducts())
+		int nProducts = products.size();
+		double[] rowWeights = new double[nProducts];
+		for(int i = 0; i < nProducts; i++)
 		{
-			builder.addStartState(product1, 1.0);
+			int[] codes1 = fieldCodes[i];
 
 			double weightSum = 0.0;
-			for(Product product2 : productCategory.getProducts())
+			for(int j = 0; j < nProducts; j++)
 			{
-				if(!product1.equals(product2))
+				if(i == j)
+					continue;
+
+				int[] codes2 = fieldCodes[j];
+				double weight = 0.0;
+				for(int f = 0; f < codes1.length; f++)
 				{
-					weightSum += productPairWeight(product1, product2);
+					weight += codes1[f] == codes2[f] ? sameWeights[f] : differentWeights[f];
 				}
+
+				rowWeights[j] = weight;
+				weightSum += weight;
 			}
 
-			for(Product product2 : productCategory.getProducts())
+			Product product1 = products.get(i);
+			builder.addStartState(product1, 1.0);
+			for(int j = 0; j < nProducts; j++)
 			{
-				double weight = 0.0;
-				if(!product1.equals(product2))
+				double weight = loopbackWeight;
+				if(i != j)
 				{
-					weight = (1.0 - loopbackWeight) * productPairWeight(product1, product2) / weightSum;
-				}
-				else
-				{	weight = loopbackWeight;
-
+					weight = (1.0 - loopbackWeight) * rowWeights[j] / weightSum;
 				}
 
-				builder.addTransition(product1, product2, weight);
+				builder.addTransition(product1, products.get(j), weight);
 			}
 		}
 
 		return builder.build();
 	}
+
+	public MarkovModel<Product> sample() throws Exception
+	{
+		return prepare().call();
+	}
 }
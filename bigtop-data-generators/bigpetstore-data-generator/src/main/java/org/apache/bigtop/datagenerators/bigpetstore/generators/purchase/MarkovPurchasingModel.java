@@ -15,6 +15,10 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
@@ -25,6 +29,7 @@ import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 public class MarkovPurchasingModel implements PurchasingModel<MarkovModel<Product>>
@@ -54,12 +59,44 @@ public class MarkovPurchasingModel implements PurchasingModel<MarkovModel<Produc
 	public PurchasingProcesses buildProcesses(SeedFactory seedFactory)
 	{
 		Map<String, Sampler<Product>> processes = Maps.newHashMap();
+		List<MarkovProcess<Product>> stateful = Lists.newArrayList();
 		for(String category : getProductCategories())
 		{
 			MarkovModel<Product> model = getProfile(category);
-			processes.put(category, new MarkovProcess<Product>(model, seedFactory));
+			MarkovProcess<Product> process = new MarkovProcess<Product>(model, seedFactory);
+			processes.put(category, process);
+			stateful.add(process);
 		}
 
-		return new PurchasingProcesses(processes);
+		return new MarkovPurchasingProcesses(processes, stateful);
+	}
+
+	/**
+	 * Saves the current state of each category's process, in category order.
+	 */
+	private static class MarkovPurchasingProcesses extends PurchasingProcesses
+	{
+		private final List<MarkovProcess<Product>> stateful;
+
+		public MarkovPurchasingProcesses(Map<String, Sampler<Product>> processes,
+				List<MarkovProcess<Product>> stateful)
+		{
+			super(processes);
+			this.stateful = stateful;
+		}
+
+		@Override
+		public void writeState(DataOutput output) throws IOException
+		{
+			for(MarkovProcess<Product> process : stateful)
+				output.writeInt(process.getCurrentState());
+		}
+
+		@Override
+		public void readState(DataInput input) throws IOException
+		{
+			for(MarkovProcess<Product> process : stateful)
+				process.setCurrentState(input.readInt());
+		}
 	}
 }
@@ -15,33 +15,70 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.samplers.markovmodels.MarkovModel;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
-public class MarkovPurchasingModelSampler implements Sampler<MarkovPurchasingModel>
+public class MarkovPurchasingModelSampler implements PurchasingModelSampler<MarkovPurchasingModel>
 {
-	final Map<ProductCategory, Sampler<MarkovModel<Product>>> categorySamplers;
+	final Map<ProductCategory, MarkovModelProductCategorySampler> categorySamplers;
 
-	public MarkovPurchasingModelSampler(Map<ProductCategory, Sampler<MarkovModel<Product>>> categorySamplers)
+	public MarkovPurchasingModelSampler(Map<ProductCategory, MarkovModelProductCategorySampler> categorySamplers)
 	{
 		this.categorySamplers = categorySamplers;
 	}
 
 	public MarkovPurchasingModel sample() throws Exception
 	{
-		Map<String, MarkovModel<Product>> markovModels = Maps.newHashMap();
-		for(ProductCategory productCategory : categorySamplers.keySet())
+		return sample(1).get(0);
+	}
+
+	public List<MarkovPurchasingModel> sample(int count) throws Exception
+	{
+		// weights are drawn model by model in category order so results don't
+		// depend on scheduling; the models themselves are built in one batch
+		List<Callable<MarkovModel<Product>>> tasks = Lists.newArrayList();
+		for(int i = 0; i < count; i++)
+		{
+			for(MarkovModelProductCategorySampler sampler : categorySamplers.values())
+			{
+				tasks.add(sampler.prepare());
+			}
+		}
+
+		List<MarkovModel<Product>> built = Lists.newArrayList();
+		if(tasks.size() == 1)
+		{
+			built.add(tasks.get(0).call());
+		}
+		else
+		{
+			for(Future<MarkovModel<Product>> future : ModelExecutor.get().invokeAll(tasks))
+			{
+				built.add(future.get());
+			}
+		}
+
+		List<MarkovPurchasingModel> models = Lists.newArrayList();
+		int next = 0;
+		for(int i = 0; i < count; i++)
 		{
-			Sampler<MarkovModel<Product>> sampler = categorySamplers.get(productCategory);
-			markovModels.put(productCategory.getCategoryLabel(), sampler.sample());
+			Map<String, MarkovModel<Product>> markovModels = Maps.newHashMap();
+			for(ProductCategory productCategory : categorySamplers.keySet())
+			{
+				markovModels.put(productCategory.getCategoryLabel(), built.get(next++));
+			}
+			models.add(new MarkovPurchasingModel(markovModels));
 		}
 
-		return new MarkovPurchasingModel(markovModels);
+		return models;
 	}
 }
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Shared pool of daemon threads for building purchasing models.  Tasks
+ * submitted here must not draw from shared samplers; callers draw any
+ * random numbers up front so results don't depend on scheduling.
+ */
+class ModelExecutor
+{
+	private static ExecutorService executor;
+
+	private ModelExecutor()
+	{
+	}
+
+	static synchronized ExecutorService get()
+	{
+		if(executor == null)
+		{
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+					new ThreadFactoryBuilder().setDaemon(true).setNameFormat("purchasing-model-%d").build());
+		}
+
+		return executor;
+	}
+}
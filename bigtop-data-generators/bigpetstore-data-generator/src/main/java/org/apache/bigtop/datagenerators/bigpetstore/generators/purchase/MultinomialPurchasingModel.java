@@ -20,7 +20,8 @@ import java.util.Map;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.pdfs.MultinomialPDF;
-import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.AliasSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.AliasTable;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 import com.google.common.collect.ImmutableMap;
@@ -34,6 +35,9 @@ public class MultinomialPurchasingModel implements PurchasingModel<MultinomialPD
 
 	private final ImmutableMap<String, MultinomialPDF<Product>> productPDFs;
 
+	// built on first use and shared by every customer with this profile
+	private transient volatile ImmutableMap<String, AliasTable<Product>> productTables;
+
 	public MultinomialPurchasingModel(Map<String, MultinomialPDF<Product>> productPDFs)
 	{
 		this.productPDFs = ImmutableMap.copyOf(productPDFs);
@@ -51,14 +55,37 @@ public class MultinomialPurchasingModel implements PurchasingModel<MultinomialPD
 		return productPDFs.get(category);
 	}
 
+	private ImmutableMap<String, AliasTable<Product>> getProductTables()
+	{
+		ImmutableMap<String, AliasTable<Product>> tables = productTables;
+		if(tables == null)
+		{
+			ImmutableMap.Builder<String, AliasTable<Product>> builder = ImmutableMap.builder();
+			for(Map.Entry<String, MultinomialPDF<Product>> entry : productPDFs.entrySet())
+			{
+				MultinomialPDF<Product> pdf = entry.getValue();
+
+				Map<Product, Double> weights = Maps.newLinkedHashMap();
+				for(Product product : pdf.getData())
+					weights.put(product, pdf.probability(product));
+
+				builder.put(entry.getKey(), new AliasTable<Product>(weights));
+			}
+
+			tables = builder.build();
+			productTables = tables;
+		}
+
+		return tables;
+	}
+
 	@Override
 	public PurchasingProcesses buildProcesses(SeedFactory seedFactory)
 	{
 		Map<String, Sampler<Product>> processes = Maps.newHashMap();
-		for(String category : getProductCategories())
+		for(Map.Entry<String, AliasTable<Product>> entry : getProductTables().entrySet())
 		{
-			MultinomialPDF<Product> pdf = productPDFs.get(category);
-			processes.put(category, RouletteWheelSampler.create(pdf, seedFactory));
+			processes.put(entry.getKey(), new AliasSampler<Product>(entry.getValue(), seedFactory));
 		}
 
 		return new PurchasingProcesses(processes);
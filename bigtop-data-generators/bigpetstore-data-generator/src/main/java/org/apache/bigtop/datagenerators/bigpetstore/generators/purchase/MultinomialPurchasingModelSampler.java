@@ -18,126 +18,181 @@ package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Vector;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.pdfs.MultinomialPDF;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.UniformIntSampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.UniformSampler;
-import org.apache.commons.lang3.tuple.Pair;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 
-public class MultinomialPurchasingModelSampler implements Sampler<MultinomialPurchasingModel>
+/**
+ * Field values are indexed once per category, and each profile draws all
+ * of its randomness from a single generator seeded by one draw from the
+ * seed factory.  Profiles are therefore independent of each other and
+ * sample(int) builds them in parallel.
+ */
+public class MultinomialPurchasingModelSampler implements PurchasingModelSampler<MultinomialPurchasingModel>
 {
+	private static class CategoryIndex
+	{
+		final String label;
+		final List<Product> products;
+		// number of distinct values of each modeled field
+		final int[] valueCounts;
+		// index of each product's value of each modeled field
+		final int[][] valueIndices;
+
+		CategoryIndex(ProductCategory productCategory)
+		{
+			label = productCategory.getCategoryLabel();
+			products = productCategory.getProducts();
+
+			List<String> fieldNames = Lists.newArrayList();
+			for(String fieldName : productCategory.getFieldNames())
+			{
+				if(!Constants.PRODUCT_MODEL_EXCLUDED_FIELDS.contains(fieldName))
+					fieldNames.add(fieldName);
+			}
+
+			valueCounts = new int[fieldNames.size()];
+			valueIndices = new int[products.size()][fieldNames.size()];
+			for(int f = 0; f < fieldNames.size(); f++)
+			{
+				Map<Object, Integer> values = Maps.newHashMap();
+				for(int p = 0; p < products.size(); p++)
+				{
+					Object value = products.get(p).getFieldValue(fieldNames.get(f));
+					Integer index = values.get(value);
+					if(index == null)
+					{
+						index = values.size();
+						values.put(value, index);
+					}
+					valueIndices[p][f] = index;
+				}
+				valueCounts[f] = values.size();
+			}
+		}
+	}
+
 	private final SeedFactory seedFactory;
-	private final Collection<ProductCategory> productCategories;
+	private final List<CategoryIndex> categories;
 
 	public MultinomialPurchasingModelSampler(Collection<ProductCategory> productCategories, SeedFactory seedFactory)
 	{
 		this.seedFactory = seedFactory;
-		this.productCategories = productCategories;
-	}
 
-	protected <T> List<T> shuffle(Collection<T> input) throws Exception
-	{
-		Vector<T> shuffled = new Vector<>(input);
-		for(int i = 0; i < input.size() - 1; i++)
+		categories = Lists.newArrayList();
+		for(ProductCategory productCategory : productCategories)
 		{
-			int swapIdx = new UniformIntSampler(i, input.size() - 1, seedFactory).sample();
-			T tmp = shuffled.get(i);
-			shuffled.set(i, shuffled.get(swapIdx));
-			shuffled.set(swapIdx, tmp);
+			categories.add(new CategoryIndex(productCategory));
 		}
-
-		return shuffled;
 	}
 
-	protected Map<Pair<String, Object>, Double> generateFieldValueWeights(ProductCategory productCategory) throws Exception
+	/**
+	 * Weights a field's values by their position in a random permutation:
+	 * the first few are always favored and each later one is favored with
+	 * a fixed probability.
+	 */
+	protected double[] generateValueWeights(int nValues, Random rng)
 	{
-		// Get all values for each field by iterating over all products
-		Multimap<String, Object> allFieldValues = HashMultimap.create();
-		for(String fieldName : productCategory.getFieldNames())
+		int[] order = new int[nValues];
+		for(int i = 0; i < nValues; i++)
 		{
-			if(!Constants.PRODUCT_MODEL_EXCLUDED_FIELDS.contains(fieldName))
-			{
-				for(Product p : productCategory.getProducts())
-				{
-					Object fieldValue = p.getFieldValue(fieldName);
-					allFieldValues.put(fieldName, fieldValue);
-				}
-			}
+			order[i] = i;
 		}
 
-		Sampler<Double> sampler = new UniformSampler(seedFactory);
-
-		// shuffle field values
-		Map<Pair<String, Object>, Double> fieldValueWeights = Maps.newHashMap();
-		for(Map.Entry<String, Collection<Object>> entry : allFieldValues.asMap().entrySet())
+		for(int i = 0; i < nValues - 1; i++)
 		{
-			String fieldName = entry.getKey();
-			List<Object> shuffled = shuffle(entry.getValue());
+			int swapIdx = i + rng.nextInt(nValues - i);
+			int tmp = order[i];
+			order[i] = order[swapIdx];
+			order[swapIdx] = tmp;
+		}
 
-			for(int i = 0; i < shuffled.size(); i++)
+		double[] weights = new double[nValues];
+		for(int i = 0; i < nValues; i++)
+		{
+			double weight = Constants.PRODUCT_MULTINOMIAL_POSITIVE_WEIGHT;
+			if((i + 1) > Constants.PRODUCT_MULTINOMIAL_POSITIVE_COUNT_MIN
+					&& rng.nextDouble() >= Constants.PRODUCT_MULTINOMIAL_POSITIVE_FREQUENCY)
 			{
-				double weight = Constants.PRODUCT_MULTINOMIAL_POSITIVE_WEIGHT;
-				if ((i + 1) > Constants.PRODUCT_MULTINOMIAL_POSITIVE_COUNT_MIN)
-				{
-					double r = sampler.sample();
-					if (r >= Constants.PRODUCT_MULTINOMIAL_POSITIVE_FREQUENCY)
-					{
-						weight = Constants.PRODUCT_MULTINOMIAL_NEGATIVE_WEIGHT;
-					}
-				}
-
-				Object fieldValue = shuffled.get(i);
-				fieldValueWeights.put(Pair.of(fieldName, fieldValue), weight);
+				weight = Constants.PRODUCT_MULTINOMIAL_NEGATIVE_WEIGHT;
 			}
-		}
 
+			weights[order[i]] = weight;
+		}
 
-		return ImmutableMap.copyOf(fieldValueWeights);
+		return weights;
 	}
 
-	protected Map<Product, Double> generateProductWeights(Map<Pair<String, Object>, Double> fieldValueWeights,
-			ProductCategory productCategory) throws Exception
+	protected MultinomialPDF<Product> generateProductPDF(CategoryIndex category, Random rng)
 	{
+		double[][] valueWeights = new double[category.valueCounts.length][];
+		for(int f = 0; f < valueWeights.length; f++)
+		{
+			valueWeights[f] = generateValueWeights(category.valueCounts[f], rng);
+		}
+
 		Map<Product, Double> productWeights = Maps.newHashMap();
-		for(Product p : productCategory.getProducts())
+		for(int p = 0; p < category.products.size(); p++)
 		{
 			double weight = 1.0;
-			for(String fieldName : productCategory.getFieldNames())
+			for(int f = 0; f < valueWeights.length; f++)
 			{
-				if(!Constants.PRODUCT_MODEL_EXCLUDED_FIELDS.contains(fieldName))
-				{
-					Object fieldValue = p.getFieldValue(fieldName);
-					Pair<String, Object> key = Pair.of(fieldName, fieldValue);
-					weight *= fieldValueWeights.get(key);
-				}
+				weight *= valueWeights[f][category.valueIndices[p][f]];
 			}
-			productWeights.put(p, weight);
+			productWeights.put(category.products.get(p), weight);
 		}
 
-		return productWeights;
+		return new MultinomialPDF<Product>(productWeights);
 	}
 
-	public MultinomialPurchasingModel sample() throws Exception
+	protected MultinomialPurchasingModel generate(long seed)
 	{
+		Random rng = new Random(seed);
+
 		Map<String, MultinomialPDF<Product>> pdfs = Maps.newHashMap();
-		for(ProductCategory productCategory : productCategories)
+		for(CategoryIndex category : categories)
 		{
-			Map<Pair<String, Object>, Double> fieldWeights = this.generateFieldValueWeights(productCategory);
-			Map<Product, Double> productWeights = this.generateProductWeights(fieldWeights, productCategory);
-			pdfs.put(productCategory.getCategoryLabel(), new MultinomialPDF<Product>(productWeights));
+			pdfs.put(category.label, generateProductPDF(category, rng));
 		}
 
 		return new MultinomialPurchasingModel(pdfs);
 	}
+
+	public MultinomialPurchasingModel sample() throws Exception
+	{
+		return generate(seedFactory.getNextSeed());
+	}
+
+	public List<MultinomialPurchasingModel> sample(int count) throws Exception
+	{
+		List<Callable<MultinomialPurchasingModel>> tasks = Lists.newArrayList();
+		for(int i = 0; i < count; i++)
+		{
+			final long seed = seedFactory.getNextSeed();
+			tasks.add(new Callable<MultinomialPurchasingModel>()
+					{
+						public MultinomialPurchasingModel call()
+						{
+							return generate(seed);
+						}
+					});
+		}
+
+		List<MultinomialPurchasingModel> models = Lists.newArrayList();
+		for(Future<MultinomialPurchasingModel> future : ModelExecutor.get().invokeAll(tasks))
+		{
+			models.add(future.get());
+		}
+
+		return models;
+	}
 }
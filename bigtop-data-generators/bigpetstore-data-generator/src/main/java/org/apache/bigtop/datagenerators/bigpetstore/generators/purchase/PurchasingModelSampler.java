@@ -13,19 +13,18 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
-import org.apache.bigtop.datagenerators.samplers.pdfs.ConditionalProbabilityDensityFunction;
+import java.util.List;
 
-public class TransactionTimePDF implements ConditionalProbabilityDensityFunction<Double, Double>
-{
-	public double probability(Double proposedTime, Double lastTransactionTime)
-	{
-		if(proposedTime >= lastTransactionTime)
-		{
-			return 1.0;
-		}
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
-		return 0.0;
-	}
+public interface PurchasingModelSampler<T extends PurchasingModel<?>> extends Sampler<T>
+{
+	/**
+	 * Samples the given number of profiles.  The result is the same as
+	 * calling sample() that many times, but implementations may build the
+	 * profiles concurrently.
+	 */
+	public List<T> sample(int count) throws Exception;
 }
@@ -21,10 +21,8 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
-import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.markovmodels.MarkovModel;
 import org.apache.bigtop.datagenerators.samplers.samplers.BoundedMultiModalGaussianSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
@@ -63,7 +61,7 @@ public class PurchasingModelSamplerBuilder
 		return fieldWeights;
 	}
 
-	public Sampler<MarkovPurchasingModel> buildMarkovPurchasingModel() throws Exception
+	public PurchasingModelSampler<MarkovPurchasingModel> buildMarkovPurchasingModel() throws Exception
 	{
 
 		Sampler<Double> fieldWeightSampler = new BoundedMultiModalGaussianSampler(Constants.PRODUCT_MSM_FIELD_WEIGHT_GAUSSIANS,
@@ -83,7 +81,7 @@ public class PurchasingModelSamplerBuilder
 
 		Map<String, Double> fieldWeights = generateFieldWeights(fieldWeightSampler);
 
-		Map<ProductCategory, Sampler<MarkovModel<Product>>> categorySamplers = Maps.newHashMap();
+		Map<ProductCategory, MarkovModelProductCategorySampler> categorySamplers = Maps.newLinkedHashMap();
 		for(ProductCategory productCategory : productCategories)
 		{
 			MarkovModelProductCategorySampler sampler = new MarkovModelProductCategorySampler(productCategory,
@@ -94,7 +92,7 @@ public class PurchasingModelSamplerBuilder
 		return new MarkovPurchasingModelSampler(categorySamplers);
 	}
 
-	public Sampler<? extends PurchasingModel> build() throws Exception
+	public PurchasingModelSampler<?> build() throws Exception
 	{
 		if(Constants.PURCHASING_MODEL_TYPE.equals(Constants.PurchasingModelType.MARKOV))
 		{
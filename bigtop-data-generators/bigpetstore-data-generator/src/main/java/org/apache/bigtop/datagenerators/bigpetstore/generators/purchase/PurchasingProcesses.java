@@ -15,6 +15,9 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Map;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
@@ -36,4 +39,16 @@ public class PurchasingProcesses implements ConditionalSampler<Product, String>
 	{
 		return this.processes.get(productCategory).sample();
 	}
+
+	/**
+	 * Saves state that the processes keep between samples.  Processes whose
+	 * samples are independent have none.
+	 */
+	public void writeState(DataOutput output) throws IOException
+	{
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+	}
 }
\ No newline at end of file
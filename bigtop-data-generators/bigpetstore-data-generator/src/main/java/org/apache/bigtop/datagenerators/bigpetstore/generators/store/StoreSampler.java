@@ -19,13 +19,15 @@ import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
 import org.apache.bigtop.datagenerators.locations.Location;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
+import com.google.common.primitives.Ints;
+
 public class StoreSampler implements Sampler<Store>
 {
 
 	private final Sampler<Location> locationSampler;
-	private final Sampler<Integer> idSampler;
+	private final Sampler<? extends Number> idSampler;
 
-	public StoreSampler(Sampler<Integer> idSampler, Sampler<Location> locationSampler)
+	public StoreSampler(Sampler<? extends Number> idSampler, Sampler<Location> locationSampler)
 	{
 		this.locationSampler = locationSampler;
 		this.idSampler = idSampler;
@@ -33,7 +35,7 @@ public class StoreSampler implements Sampler<Store>
 
 	public Store sample() throws Exception
 	{
-		Integer id = idSampler.sample();
+		int id = Ints.checkedCast(idSampler.sample().longValue());
 		String name = "Store_" + id;
 		Location location = locationSampler.sample();
 
@@ -23,9 +23,9 @@ import org.apache.bigtop.datagenerators.locations.Location;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.pdfs.JointPDF;
 import org.apache.bigtop.datagenerators.samplers.pdfs.ProbabilityDensityFunction;
+import org.apache.bigtop.datagenerators.samplers.samplers.IdAllocator;
 import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.SequenceSampler;
 
 public class StoreSamplerBuilder
 {
@@ -40,7 +40,7 @@ public class StoreSamplerBuilder
 
 	public Sampler<Store> build()
 	{
-		Sampler<Integer> idSampler = new SequenceSampler();
+		Sampler<Long> idSampler = new IdAllocator();
 
 		ProbabilityDensityFunction<Location> locationPopulationPDF =
 				new StoreLocationPopulationPDF(zipcodeTable);
@@ -15,51 +15,175 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Map;
 
-import org.apache.bigtop.datagenerators.bigpetstore.Constants;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 
+/**
+ * Inventories of a single customer, indexed by category id.  The category
+ * id is the position of the category in the map given at construction.
+ *
+ * Exhaustion times are cached in a primitive array and refreshed only for
+ * the category touched by a purchase, and the earliest exhaustion time is
+ * maintained alongside so it can be queried in constant time.
+ */
 public class CustomerInventory
 {
-	final private ImmutableMap<String, ProductCategoryInventory> productCategoryInventories;
+	final private ImmutableMap<String, Integer> categoryIds;
+	final private String[] categories;
+	final private ProductCategoryInventory[] inventories;
+	final private double[] exhaustionTimes;
+	private int minExhaustionId;
 
 	public CustomerInventory(Map<String, ProductCategoryInventory> productCategoryInventories)
 	{
-		this.productCategoryInventories = ImmutableMap.copyOf(productCategoryInventories);
+		int nCategories = productCategoryInventories.size();
+		categories = new String[nCategories];
+		inventories = new ProductCategoryInventory[nCategories];
+		exhaustionTimes = new double[nCategories];
+
+		ImmutableMap.Builder<String, Integer> ids = ImmutableMap.builder();
+		int id = 0;
+		for(Map.Entry<String, ProductCategoryInventory> entry : productCategoryInventories.entrySet())
+		{
+			categories[id] = entry.getKey();
+			inventories[id] = entry.getValue();
+			exhaustionTimes[id] = entry.getValue().findExhaustionTime();
+			ids.put(entry.getKey(), id);
+			id++;
+		}
+		categoryIds = ids.build();
+
+		updateMinExhaustionId();
+	}
+
+	private void updateMinExhaustionId()
+	{
+		minExhaustionId = -1;
+		for(int id = 0; id < exhaustionTimes.length; id++)
+		{
+			if(minExhaustionId == -1 || exhaustionTimes[id] < exhaustionTimes[minExhaustionId])
+			{
+				minExhaustionId = id;
+			}
+		}
 	}
 
 	public void simulatePurchase(double time, Product product) throws Exception
 	{
-		String category = product.getFieldValueAsString(Constants.PRODUCT_CATEGORY);
-		ProductCategoryInventory inventory = productCategoryInventories.get(category);
-		inventory.simulatePurchase(time, product);
+		int id = getCategoryId(product.getCategory());
+		if(id == -1)
+		{
+			throw new IllegalArgumentException("Customer has no inventory for category (" +
+					product.getCategory() + ")");
+		}
+
+		inventories[id].simulatePurchase(time, product);
+
+		double previous = exhaustionTimes[id];
+		exhaustionTimes[id] = inventories[id].findExhaustionTime();
+
+		if(exhaustionTimes[id] < exhaustionTimes[minExhaustionId])
+		{
+			minExhaustionId = id;
+		}
+		else if(id == minExhaustionId && exhaustionTimes[id] > previous)
+		{
+			updateMinExhaustionId();
+		}
+	}
+
+	/**
+	 * @return number of categories the customer keeps an inventory for
+	 */
+	public int size()
+	{
+		return categories.length;
+	}
+
+	public String getCategory(int categoryId)
+	{
+		return categories[categoryId];
+	}
+
+	/**
+	 * @return id of the given category or -1 if the customer does not keep an inventory for it
+	 */
+	public int getCategoryId(String category)
+	{
+		Integer id = categoryIds.get(category);
+		if(id == null)
+		{
+			return -1;
+		}
+
+		return id;
+	}
+
+	public double getExhaustionTime(int categoryId)
+	{
+		return exhaustionTimes[categoryId];
+	}
+
+	/**
+	 * @return earliest exhaustion time over all categories or Double.MAX_VALUE if there are none
+	 */
+	public double getMinExhaustionTime()
+	{
+		if(minExhaustionId == -1)
+		{
+			return Double.MAX_VALUE;
+		}
+
+		return exhaustionTimes[minExhaustionId];
+	}
+
+	public double getInventoryAmount(int categoryId, double time)
+	{
+		return inventories[categoryId].findRemainingAmount(time);
 	}
 
 	public ImmutableMap<String, Double> getInventoryAmounts(double time)
 	{
-		Map<String, Double> amounts = Maps.newHashMap();
-		for(String category : productCategoryInventories.keySet())
+		ImmutableMap.Builder<String, Double> amounts = ImmutableMap.builder();
+		for(int id = 0; id < categories.length; id++)
+		{
+			amounts.put(categories[id], getInventoryAmount(id, time));
+		}
+
+		return amounts.build();
+	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		for(ProductCategoryInventory inventory : inventories)
+			inventory.writeState(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		for(int id = 0; id < inventories.length; id++)
 		{
-			double amount = productCategoryInventories.get(category).findRemainingAmount(time);
-			amounts.put(category, amount);
+			inventories[id].readState(input);
+			exhaustionTimes[id] = inventories[id].findExhaustionTime();
 		}
 
-		return ImmutableMap.copyOf(amounts);
+		updateMinExhaustionId();
 	}
 
 	public ImmutableMap<String, Double> getExhaustionTimes()
 	{
-		Map<String, Double> times = Maps.newHashMap();
-		for(String category : productCategoryInventories.keySet())
+		ImmutableMap.Builder<String, Double> times = ImmutableMap.builder();
+		for(int id = 0; id < categories.length; id++)
 		{
-			double time = productCategoryInventories.get(category).findExhaustionTime();
-			times.put(category, time);
+			times.put(categories[id], exhaustionTimes[id]);
 		}
 
-		return ImmutableMap.copyOf(times);
+		return times.build();
 	}
 }
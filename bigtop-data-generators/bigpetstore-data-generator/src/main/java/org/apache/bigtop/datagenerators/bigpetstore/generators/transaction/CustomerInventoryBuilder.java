@@ -49,7 +49,7 @@ public class CustomerInventoryBuilder
 		this.productCategories.addAll(productCategories);
 	}
 
-	public CustomerInventory build()
+	public CustomerInventory build() throws Exception
 	{
 		Map<String, ProductCategoryInventory> inventories = Maps.newHashMap();
 		for(ProductCategory productCategory : productCategories)
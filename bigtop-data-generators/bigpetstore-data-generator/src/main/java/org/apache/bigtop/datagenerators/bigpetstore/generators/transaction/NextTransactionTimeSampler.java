@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+
+/**
+ * Samples the time of a customer's next transaction.  Each product category
+ * proposes its exhaustion time minus an exponential lead time, clipped at
+ * zero, and the earliest proposal wins.  The next transaction is the
+ * earliest proposal conditioned on falling after the last transaction.
+ *
+ * The minimum has survival function
+ *
+ *   S(t) = prod_c (1 - exp(-lambda (e_c - t)))  for t < min_c e_c
+ *
+ * so the conditioned time is sampled by inverting S(t) / S(last) with
+ * bisection on [last, min_c e_c] instead of rejecting proposals.
+ */
+public class NextTransactionTimeSampler implements Sampler<Double>
+{
+	private static final int MAX_BISECTION_ITERATIONS = 100;
+
+	private final CustomerInventory customerInventory;
+	private final double lambda;
+	private final Random rng;
+	private double lastTransactionTime;
+
+	public NextTransactionTimeSampler(CustomerInventory customerInventory, double lambda,
+			SeedFactory seedFactory)
+	{
+		this.customerInventory = customerInventory;
+		this.lambda = lambda;
+		rng = seedFactory.newRandom();
+		lastTransactionTime = 0.0;
+	}
+
+	private double logSurvival(double time)
+	{
+		double logSurvival = 0.0;
+		for(int id = 0; id < customerInventory.size(); id++)
+		{
+			double leadTime = customerInventory.getExhaustionTime(id) - time;
+			if(leadTime <= 0.0)
+				return Double.NEGATIVE_INFINITY;
+
+			logSurvival += Math.log1p(-Math.exp(-lambda * leadTime));
+		}
+
+		return logSurvival;
+	}
+
+	public Double sample()
+	{
+		double low = Math.max(lastTransactionTime, 0.0);
+		double high = customerInventory.getMinExhaustionTime();
+
+		// proposals are clipped at zero, so nothing to condition on before then
+		double logTarget = Math.log(1.0 - rng.nextDouble());
+		if(lastTransactionTime > 0.0)
+			logTarget += logSurvival(lastTransactionTime);
+
+		/*
+		 * Either the draw falls on the atom at zero or a category was already
+		 * exhausted at the last transaction, which leaves no time to wait.
+		 */
+		if(high <= low || logSurvival(low) <= logTarget)
+		{
+			lastTransactionTime = low;
+			return low;
+		}
+
+		for(int i = 0; i < MAX_BISECTION_ITERATIONS && low < high; i++)
+		{
+			double mid = 0.5 * (low + high);
+			if(mid <= low || mid >= high)
+				break;
+
+			if(logSurvival(mid) > logTarget)
+				low = mid;
+			else
+				high = mid;
+		}
+
+		lastTransactionTime = high;
+		return high;
+	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		output.writeDouble(lastTransactionTime);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		lastTransactionTime = input.readDouble();
+	}
+}
@@ -15,10 +15,17 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.InventoryInitialization;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.UniformSampler;
 
 public class ProductCategoryInventory
 {
@@ -26,24 +33,65 @@ public class ProductCategoryInventory
 	private ProductCategoryUsageSimulator simulator;
 
 	public ProductCategoryInventory(ProductCategory productCategory, CustomerTransactionParameters parameters,
-			SeedFactory seedFactory)
+			SeedFactory seedFactory) throws Exception
 	{
+		this(productCategory, parameters, Constants.INVENTORY_INITIALIZATION, seedFactory);
+	}
 
+	public ProductCategoryInventory(ProductCategory productCategory, CustomerTransactionParameters parameters,
+			InventoryInitialization initialization, SeedFactory seedFactory) throws Exception
+	{
 		double amountUsedAverage = productCategory.getBaseAmountUsedAverage() * parameters.countPetsBySpecies(productCategory.getApplicableSpecies());
 		double amountUsedVariance = productCategory.getBaseAmountUsedVariance() * parameters.countPetsBySpecies(productCategory.getApplicableSpecies());
 
 		trajectory = new ProductCategoryUsageTrajectory(0.0, 0.0);
 		simulator = new ProductCategoryUsageSimulator(productCategory.getDailyUsageRate(),
-				amountUsedAverage, amountUsedVariance, seedFactory);
+				amountUsedAverage, amountUsedVariance, Constants.USAGE_SIMULATION_MODE, seedFactory);
+
+		// without pets nothing is used up and there is no cycle to be part way through
+		if(initialization == InventoryInitialization.STEADY_STATE && amountUsedAverage > 0.0)
+			initializeSteadyState(productCategory.getAverageQuantity(), new UniformSampler(seedFactory));
+	}
+
+	/*
+	 * In steady state a customer observed at a random time is somewhere in
+	 * the middle of using up a purchase.  Simulate one usage cycle starting
+	 * from a typical purchase and shift it so that time 0 falls at a uniformly
+	 * drawn phase of the cycle.  Cycles are not weighted by their length, so
+	 * long cycles are slightly under-represented.
+	 */
+	private void initializeSteadyState(double purchaseAmount, Sampler<Double> phaseSampler) throws Exception
+	{
+		if(!(purchaseAmount > 0.0))
+			return;
+
+		ProductCategoryUsageTrajectory cycle = simulator.simulate(0.0, purchaseAmount);
+
+		double offset = 0.0;
+		if(!Double.isInfinite(cycle.getLastTime()))
+			offset = phaseSampler.sample() * cycle.getLastTime();
+
+		trajectory = new ProductCategoryUsageTrajectory(cycle.getTime(0) - offset, cycle.getAmount(0),
+				cycle.isInterpolated());
+		for(int i = 1; i < cycle.size(); i++)
+			trajectory.append(cycle.getTime(i) - offset, cycle.getAmount(i));
+		trajectory.compact(0.0);
 	}
 
 	public void simulatePurchase(double time, Product product) throws Exception
 	{
-		double amountPurchased = product.getFieldValueAsDouble(Constants.PRODUCT_QUANTITY);
+		double amountPurchased = product.getQuantity();
+		if(Double.isNaN(amountPurchased))
+		{
+			throw new IllegalArgumentException("Product (" + product.toString() +
+					") does not contain a quantity");
+		}
 
 		double amountRemainingBeforePurchase = trajectory.amountAtTime(time);
 
 		trajectory = simulator.simulate(time, amountRemainingBeforePurchase + amountPurchased);
+		// later queries never go back before the purchase
+		trajectory.compact(time);
 	}
 
 	public double findExhaustionTime()
@@ -55,4 +103,14 @@ public class ProductCategoryInventory
 	{
 		return trajectory.amountAtTime(time);
 	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		trajectory.write(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		trajectory = ProductCategoryUsageTrajectory.read(input);
+	}
 }
@@ -15,27 +15,115 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.UsageSimulationMode;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.ExponentialSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.FirstPassageTimeSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.GaussianSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+import org.apache.commons.math3.special.Erf;
 
 public class ProductCategoryUsageSimulator
 {
+	private static final int USAGE_MOMENT_QUADRATURE_POINTS = 256;
+
 	final private double amountUsedAverage;
 	final private double amountUsedVariance;
+	final private UsageSimulationMode mode;
+
+	private Sampler<Double> timestepSampler;
+	private Sampler<Double> R;
 
-	final private Sampler<Double> timestepSampler;
-	final private Sampler<Double> R;
+	private ConditionalSampler<Double, Double> exhaustionTimeSampler;
+	private double expectedOvershoot;
 
 	public ProductCategoryUsageSimulator(double dailyUsageRate, double amountUsedAverage,
 			double amountUsedVariance, SeedFactory seedFactory)
+	{
+		this(dailyUsageRate, amountUsedAverage, amountUsedVariance, UsageSimulationMode.STEPWISE,
+				seedFactory);
+	}
+
+	public ProductCategoryUsageSimulator(double dailyUsageRate, double amountUsedAverage,
+			double amountUsedVariance, UsageSimulationMode mode, SeedFactory seedFactory)
 	{
 		this.amountUsedAverage = amountUsedAverage;
 		this.amountUsedVariance = amountUsedVariance;
+		this.mode = mode;
+
+		if(mode == UsageSimulationMode.FIRST_PASSAGE)
+		{
+			initializeFirstPassage(dailyUsageRate, seedFactory);
+		}
+		else
+		{
+			timestepSampler = new ExponentialSampler(dailyUsageRate, seedFactory);
+			R = new GaussianSampler(0.0, 1.0, seedFactory);
+		}
+	}
+
+	/*
+	 * Usage events form a renewal-reward process: each event waits an
+	 * exponential timestep and uses a Gaussian amount clipped at zero.  Over
+	 * many events the amount used behaves like a drift-diffusion process
+	 * whose drift and diffusion follow from the first two moments of the
+	 * per-event usage and its covariance with the timestep.  The moments are
+	 * integrated numerically over the timestep distribution; the clipped
+	 * Gaussian moments are closed-form.  The last event overshoots the
+	 * remaining amount by (usage^2) / (2 usage) on average, which is added
+	 * to the distance to travel.
+	 */
+	private void initializeFirstPassage(double dailyUsageRate, SeedFactory seedFactory)
+	{
+		double meanUsage = 0.0;
+		double meanSquaredUsage = 0.0;
+		double meanUsageTimestep = 0.0;
+		double meanSquaredTimestep = 0.0;
+
+		int n = USAGE_MOMENT_QUADRATURE_POINTS;
+		for(int i = 0; i < n; i++)
+		{
+			double timestep = -Math.log(1.0 - (i + 0.5) / n) / dailyUsageRate;
+			double mean = amountUsedAverage * timestep;
+			double std = Math.sqrt(amountUsedVariance * timestep);
 
-		timestepSampler = new ExponentialSampler(dailyUsageRate, seedFactory);
-		R = new GaussianSampler(0.0, 1.0, seedFactory);
+			double usage;
+			double squaredUsage;
+			if(std == 0.0)
+			{
+				usage = Math.max(mean, 0.0);
+				squaredUsage = usage * usage;
+			}
+			else
+			{
+				double z = mean / std;
+				double cdf = 0.5 * Erf.erfc(-z / Math.sqrt(2.0));
+				double pdf = Math.exp(-0.5 * z * z) / Math.sqrt(2.0 * Math.PI);
+				usage = mean * cdf + std * pdf;
+				squaredUsage = (mean * mean + std * std) * cdf + mean * std * pdf;
+			}
+
+			meanUsage += usage / n;
+			meanSquaredUsage += squaredUsage / n;
+			meanUsageTimestep += timestep * usage / n;
+			meanSquaredTimestep += timestep * timestep / n;
+		}
+
+		if(meanUsage <= 0.0)
+		{
+			// nothing is ever used up
+			exhaustionTimeSampler = null;
+			expectedOvershoot = 0.0;
+			return;
+		}
+
+		double drift = dailyUsageRate * meanUsage;
+		double diffusion = Math.max(0.0, dailyUsageRate * (meanSquaredUsage - 2.0 * drift * meanUsageTimestep +
+				drift * drift * meanSquaredTimestep));
+
+		exhaustionTimeSampler = new FirstPassageTimeSampler(drift, diffusion, seedFactory);
+		expectedOvershoot = meanSquaredUsage / (2.0 * meanUsage);
 	}
 
 	private void step(ProductCategoryUsageTrajectory trajectory) throws Exception
@@ -58,8 +146,27 @@ public class ProductCategoryUsageSimulator
 		trajectory.append(time, remainingAmount);
 	}
 
+	private ProductCategoryUsageTrajectory simulateFirstPassage(double initialTime, double initialAmount) throws Exception
+	{
+		ProductCategoryUsageTrajectory trajectory = new ProductCategoryUsageTrajectory(initialTime, initialAmount, true);
+
+		if(initialAmount <= 0.0)
+			return trajectory;
+
+		double exhaustionTime = Double.POSITIVE_INFINITY;
+		if(exhaustionTimeSampler != null)
+			exhaustionTime = exhaustionTimeSampler.sample(initialAmount + expectedOvershoot);
+
+		trajectory.append(initialTime + exhaustionTime, 0.0);
+
+		return trajectory;
+	}
+
 	public ProductCategoryUsageTrajectory simulate(double initialTime, double initialAmount) throws Exception
 	{
+		if(mode == UsageSimulationMode.FIRST_PASSAGE)
+			return simulateFirstPassage(initialTime, initialAmount);
+
 		ProductCategoryUsageTrajectory trajectory = new ProductCategoryUsageTrajectory(initialTime, initialAmount);
 
 		while(trajectory.getLastAmount() > 0.0)
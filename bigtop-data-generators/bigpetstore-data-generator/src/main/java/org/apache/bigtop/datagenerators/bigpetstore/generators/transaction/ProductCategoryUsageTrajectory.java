@@ -15,60 +15,179 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
-import java.util.List;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.lang3.tuple.Pair;
 
-import com.google.common.collect.Lists;
-
+/**
+ * Step function of the remaining amount of a product category over time.
+ * Times must be appended in non-decreasing order; the amount at a given
+ * time is the amount of the last step at or before that time.  Interpolated
+ * trajectories instead interpolate linearly between neighbouring steps.
+ */
 public class ProductCategoryUsageTrajectory
 {
-	final private List<Pair<Double, Double>> trajectory;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private double[] times;
+	private double[] amounts;
+	private int size;
+	final private boolean interpolated;
 
 	public ProductCategoryUsageTrajectory(double initialTime, double initialAmount)
 	{
-		trajectory = Lists.newArrayList();
+		this(initialTime, initialAmount, false);
+	}
+
+	public ProductCategoryUsageTrajectory(double initialTime, double initialAmount, boolean interpolated)
+	{
+		this.interpolated = interpolated;
+		times = new double[INITIAL_CAPACITY];
+		amounts = new double[INITIAL_CAPACITY];
+		size = 0;
 		this.append(initialTime, initialAmount);
 	}
 
 	public void append(double time, double amount)
 	{
-		trajectory.add(Pair.of(time, amount));
+		if(size == times.length)
+		{
+			times = Arrays.copyOf(times, 2 * size);
+			amounts = Arrays.copyOf(amounts, 2 * size);
+		}
+
+		times[size] = time;
+		amounts[size] = amount;
+		size++;
 	}
 
 	public double getLastAmount()
 	{
-		return trajectory.get(trajectory.size() - 1).getValue();
+		return amounts[size - 1];
 	}
 
 	public double getLastTime()
 	{
-		return trajectory.get(trajectory.size() - 1).getKey();
+		return times[size - 1];
 	}
 
-	public double amountAtTime(double time)
+	/**
+	 * @return index of the last step at or before the given time or -1 if there is none
+	 */
+	private int stepAtTime(double time)
 	{
-		Pair<Double, Double> previous = null;
-		for(Pair<Double, Double> entry : trajectory)
+		int low = 0;
+		int high = size;
+		while(low < high)
 		{
-			if(entry.getKey() > time)
-				break;
-			previous = entry;
+			int mid = (low + high) >>> 1;
+			if(times[mid] <= time)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
 		}
 
-		if(previous == null)
+		return low - 1;
+	}
+
+	public double amountAtTime(double time)
+	{
+		int idx = stepAtTime(time);
+
+		if(idx == -1)
 			return 0.0;
 
-		return previous.getValue();
+		if(interpolated && idx < size - 1 && times[idx + 1] > times[idx])
+		{
+			double fraction = (time - times[idx]) / (times[idx + 1] - times[idx]);
+			return amounts[idx] + fraction * (amounts[idx + 1] - amounts[idx]);
+		}
+
+		return amounts[idx];
+	}
+
+	/**
+	 * Drops the steps that queries at or after the given time can no longer
+	 * reach: the steps before the one in effect at that time and steps that
+	 * do not change the amount (for step functions).  The last step is always
+	 * kept so the exhaustion time is preserved.  Unused capacity is released.
+	 */
+	public void compact(double time)
+	{
+		int first = Math.max(0, stepAtTime(time));
+
+		int kept = 0;
+		for(int i = first; i < size; i++)
+		{
+			boolean last = i == size - 1;
+			if(kept == 0 || last || interpolated || amounts[i] != amounts[kept - 1])
+			{
+				times[kept] = times[i];
+				amounts[kept] = amounts[i];
+				kept++;
+			}
+		}
+
+		size = kept;
+		times = Arrays.copyOf(times, size);
+		amounts = Arrays.copyOf(amounts, size);
+	}
+
+	public double getTime(int idx)
+	{
+		return times[idx];
+	}
+
+	public double getAmount(int idx)
+	{
+		return amounts[idx];
 	}
 
 	public Pair<Double, Double> getStep(int idx)
 	{
-		return trajectory.get(idx);
+		return Pair.of(times[idx], amounts[idx]);
+	}
+
+	public boolean isInterpolated()
+	{
+		return interpolated;
 	}
 
 	public int size()
 	{
-		return trajectory.size();
+		return size;
+	}
+
+	public void write(DataOutput output) throws IOException
+	{
+		output.writeBoolean(interpolated);
+		output.writeInt(size);
+		for(int i = 0; i < size; i++)
+		{
+			output.writeDouble(times[i]);
+			output.writeDouble(amounts[i]);
+		}
+	}
+
+	public static ProductCategoryUsageTrajectory read(DataInput input) throws IOException
+	{
+		boolean interpolated = input.readBoolean();
+		int size = input.readInt();
+		if(size < 1)
+			throw new IOException("Trajectory must have at least one step but has " + size);
+
+		ProductCategoryUsageTrajectory trajectory = new ProductCategoryUsageTrajectory(input.readDouble(),
+				input.readDouble(), interpolated);
+		for(int i = 1; i < size; i++)
+			trajectory.append(input.readDouble(), input.readDouble());
+
+		return trajectory;
 	}
 }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+
+/**
+ * Issues a customer's transaction ids.  Each id packs the customer id into
+ * the high bits and the customer's own transaction sequence number into the
+ * low {@link Constants#TRANSACTION_ID_SEQUENCE_BITS} bits, so ids are unique
+ * across the whole dataset without any coordination between customers,
+ * threads or shards.  Since customer ids are dense and every customer counts
+ * up from 0, the ids form one dense run per customer.
+ */
+public class TransactionIdSampler implements Sampler<Long>
+{
+	private static final long SEQUENCE_MASK = (1L << Constants.TRANSACTION_ID_SEQUENCE_BITS) - 1;
+
+	private final int customerId;
+	private final long base;
+	private long next;
+
+	public TransactionIdSampler(int customerId)
+	{
+		if(customerId < 0)
+			throw new IllegalArgumentException("Customer id must be non-negative but was " + customerId);
+
+		this.customerId = customerId;
+		this.base = (long) customerId << Constants.TRANSACTION_ID_SEQUENCE_BITS;
+		this.next = 0;
+	}
+
+	public Long sample() throws Exception
+	{
+		if(next > SEQUENCE_MASK)
+			throw new NoSuchElementException("Customer " + customerId + " has used all of its transaction ids");
+
+		return base | next++;
+	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		output.writeLong(next);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		long next = input.readLong();
+		if(next < 0 || next > SEQUENCE_MASK + 1)
+			throw new IOException("Invalid transaction sequence number " + next);
+
+		this.next = next;
+	}
+
+	public static int getCustomerId(long transactionId)
+	{
+		return (int) (transactionId >>> Constants.TRANSACTION_ID_SEQUENCE_BITS);
+	}
+
+	public static long getSequenceNumber(long transactionId)
+	{
+		return transactionId & SEQUENCE_MASK;
+	}
+}
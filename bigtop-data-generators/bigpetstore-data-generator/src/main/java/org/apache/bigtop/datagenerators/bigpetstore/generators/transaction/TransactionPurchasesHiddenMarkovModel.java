@@ -15,33 +15,34 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingProcesses;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 import org.apache.bigtop.datagenerators.samplers.wfs.ConditionalWeightFunction;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 public class TransactionPurchasesHiddenMarkovModel implements ConditionalSampler<List<Product>, Double>
 {
 
 	protected final static String STOP_STATE = "STOP";
 
-	final ConditionalSampler<Product, String> purchasingProcesses;
+	final PurchasingProcesses purchasingProcesses;
 	final ConditionalWeightFunction<Double, Double> categoryWF;
 	final CustomerInventory inventory;
 
-	final SeedFactory seedFactory;
+	final Random rng;
+	final double[] weights;
 
-	public TransactionPurchasesHiddenMarkovModel(ConditionalSampler<Product, String> purchasingProcesses,
+	public TransactionPurchasesHiddenMarkovModel(PurchasingProcesses purchasingProcesses,
 			ConditionalWeightFunction<Double, Double> categoryWF, CustomerInventory inventory,
 				SeedFactory seedFactory)
 	{
@@ -49,29 +50,41 @@ public class TransactionPurchasesHiddenMarkovModel implements ConditionalSampler
 		this.inventory = inventory;
 		this.categoryWF = categoryWF;
 
-		this.seedFactory = seedFactory;
+		this.rng = seedFactory.newRandom();
+		this.weights = new double[inventory.size()];
 	}
 
 	protected String chooseCategory(double transactionTime, int numPurchases) throws Exception
 	{
-		ImmutableMap<String, Double> exhaustionTimes = this.inventory.getExhaustionTimes();
-		Map<String, Double> weights = Maps.newHashMap();
-
-		for(Map.Entry<String, Double> entry : exhaustionTimes.entrySet())
+		double weightSum = 0.0;
+		for(int id = 0; id < weights.length; id++)
 		{
-			String category = entry.getKey();
-			double weight = this.categoryWF.weight(entry.getValue(), transactionTime);
-			weights.put(category, weight);
+			weights[id] = this.categoryWF.weight(this.inventory.getExhaustionTime(id), transactionTime);
+			weightSum += weights[id];
 		}
 
 		if(numPurchases > 0)
 		{
-			weights.put(STOP_STATE, Constants.STOP_CATEGORY_WEIGHT);
+			weightSum += Constants.STOP_CATEGORY_WEIGHT;
 		}
 
-		Sampler<String> sampler = RouletteWheelSampler.create(weights, seedFactory);
+		double r = rng.nextDouble() * weightSum;
+		double cumWeight = 0.0;
+		for(int id = 0; id < weights.length; id++)
+		{
+			cumWeight += weights[id];
+			if(r < cumWeight)
+			{
+				return this.inventory.getCategory(id);
+			}
+		}
 
-		return sampler.sample();
+		if(numPurchases > 0)
+		{
+			return STOP_STATE;
+		}
+
+		throw new IllegalStateException("Unable to choose a category -- all category weights are zero");
 	}
 
 	protected Product chooseProduct(String category) throws Exception
@@ -105,4 +118,16 @@ public class TransactionPurchasesHiddenMarkovModel implements ConditionalSampler
 
 		return purchasedProducts;
 	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		inventory.writeState(output);
+		purchasingProcesses.writeState(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		inventory.readState(input);
+		purchasingProcesses.readState(input);
+	}
 }
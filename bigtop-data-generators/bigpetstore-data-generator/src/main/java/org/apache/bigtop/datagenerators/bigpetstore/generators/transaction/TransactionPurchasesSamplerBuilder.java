@@ -16,27 +16,24 @@
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
 import java.util.Collection;
-import java.util.List;
 
-import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingProcesses;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
 import org.apache.bigtop.datagenerators.samplers.wfs.ConditionalWeightFunction;
 
 public class TransactionPurchasesSamplerBuilder
 {
 	final SeedFactory seedFactory;
 	final Collection<ProductCategory> productCategories;
-	final PurchasingModel purchasingProfile;
+	final PurchasingModel<?> purchasingProfile;
 
 	protected CustomerTransactionParameters transactionParameters;
 	protected CustomerInventory inventory;
 
 	public TransactionPurchasesSamplerBuilder(Collection<ProductCategory> productCategories,
-			PurchasingModel purchasingProfile,
+			PurchasingModel<?> purchasingProfile,
 			SeedFactory seedFactory)
 	{
 		this.seedFactory = seedFactory;
@@ -55,16 +52,13 @@ public class TransactionPurchasesSamplerBuilder
 		this.inventory = inventory;
 	}
 
-	public ConditionalSampler<List<Product>, Double> build() throws Exception
+	public TransactionPurchasesHiddenMarkovModel build() throws Exception
 	{
 		PurchasingProcesses processes = purchasingProfile.buildProcesses(seedFactory);
 
 		ConditionalWeightFunction<Double, Double> categoryWF =
 				new CategoryWeightFunction(transactionParameters.getAveragePurchaseTriggerTime());
 
-		ConditionalSampler<List<Product>, Double> sampler = new TransactionPurchasesHiddenMarkovModel(processes,
-				categoryWF, inventory, this.seedFactory);
-
-		return sampler;
+		return new TransactionPurchasesHiddenMarkovModel(processes, categoryWF, inventory, this.seedFactory);
 	}
 }
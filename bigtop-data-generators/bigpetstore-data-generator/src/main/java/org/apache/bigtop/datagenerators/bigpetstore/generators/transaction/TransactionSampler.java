@@ -15,24 +15,26 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
-import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
 public class TransactionSampler implements Sampler<Transaction>
 {
-	private final Sampler<Double> timeSampler;
-	private final ConditionalSampler<List<Product>, Double> purchasesSampler;
-	private final Sampler<Integer> idSampler;
+	private final NextTransactionTimeSampler timeSampler;
+	private final TransactionPurchasesHiddenMarkovModel purchasesSampler;
+	private final TransactionIdSampler idSampler;
 	private final Customer customer;
 
-	public TransactionSampler(Customer customer, Sampler<Double> timeSampler,
-			ConditionalSampler<List<Product>, Double> purchasesSampler,
-			Sampler<Integer> idSampler)
+	public TransactionSampler(Customer customer, NextTransactionTimeSampler timeSampler,
+			TransactionPurchasesHiddenMarkovModel purchasesSampler,
+			TransactionIdSampler idSampler)
 	{
 		this.timeSampler = timeSampler;
 		this.customer = customer;
@@ -45,7 +47,7 @@ public class TransactionSampler implements Sampler<Transaction>
 	{
 		Double transactionTime = timeSampler.sample();
 		List<Product> purchase = purchasesSampler.sample(transactionTime);
-		Integer id = idSampler.sample();
+		Long id = idSampler.sample();
 
 		Transaction transaction = new Transaction(id, customer, customer.getStore(),
 				transactionTime, purchase);
@@ -53,4 +55,22 @@ public class TransactionSampler implements Sampler<Transaction>
 		return transaction;
 	}
 
+	/**
+	 * Saves what the samplers keep between transactions.  The randomness is
+	 * saved separately through the seed factory the samplers were built from.
+	 */
+	public void writeState(DataOutput output) throws IOException
+	{
+		timeSampler.writeState(output);
+		purchasesSampler.writeState(output);
+		idSampler.writeState(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		timeSampler.readState(input);
+		purchasesSampler.readState(input);
+		idSampler.readState(input);
+	}
+
 }
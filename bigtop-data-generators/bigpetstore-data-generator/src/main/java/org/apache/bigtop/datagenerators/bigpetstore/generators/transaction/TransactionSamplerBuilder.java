@@ -16,23 +16,17 @@
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
 import java.util.Collection;
-import java.util.List;
 
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
-import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
-import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.SequenceSampler;
 
 public class TransactionSamplerBuilder
 {
 	private final Collection<ProductCategory> productCategories;
 	private final Customer customer;
-	private final PurchasingModel purchasingProfile;
+	private final PurchasingModel<?> purchasingProfile;
 	private final SeedFactory seedFactory;
 
 	CustomerTransactionParameters parameters;
@@ -40,7 +34,7 @@ public class TransactionSamplerBuilder
 
 	public TransactionSamplerBuilder(Collection<ProductCategory> productCategories,
 			Customer customer,
-			PurchasingModel purchasingProfile,
+			PurchasingModel<?> purchasingProfile,
 			SeedFactory seedFactory) throws Exception
 	{
 		this.customer = customer;
@@ -55,7 +49,7 @@ public class TransactionSamplerBuilder
 		parameters = builder.build().sample();
 	}
 
-	protected ConditionalSampler<List<Product>, Double> buildPurchasesSampler() throws Exception
+	protected TransactionPurchasesHiddenMarkovModel buildPurchasesSampler() throws Exception
 	{
 		TransactionPurchasesSamplerBuilder builder = new TransactionPurchasesSamplerBuilder(productCategories,
 				purchasingProfile, seedFactory);
@@ -66,7 +60,7 @@ public class TransactionSamplerBuilder
 		return builder.build();
 	}
 
-	protected Sampler<Double> buildTimeSampler()
+	protected NextTransactionTimeSampler buildTimeSampler()
 	{
 		TransactionTimeSamplerBuilder builder = new TransactionTimeSamplerBuilder(seedFactory);
 		builder.setCustomerTransactionParameters(parameters);
@@ -75,7 +69,7 @@ public class TransactionSamplerBuilder
 		return builder.build();
 	}
 
-	protected void buildCustomerInventory()
+	protected void buildCustomerInventory() throws Exception
 	{
 		CustomerInventoryBuilder inventoryBuilder = new CustomerInventoryBuilder(parameters,
 				seedFactory);
@@ -83,13 +77,14 @@ public class TransactionSamplerBuilder
 		inventory = inventoryBuilder.build();
 	}
 
-	public Sampler<Transaction> build() throws Exception
+	public TransactionSampler build() throws Exception
 	{
 		buildParameters();
 		buildCustomerInventory();
 
-		Sampler<Double> timeSampler = buildTimeSampler();
+		NextTransactionTimeSampler timeSampler = buildTimeSampler();
 
-		return new TransactionSampler(customer, timeSampler, buildPurchasesSampler(), new SequenceSampler());
+		return new TransactionSampler(customer, timeSampler, buildPurchasesSampler(),
+				new TransactionIdSampler(customer.getId()));
 	}
 }
@@ -16,9 +16,6 @@
 package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.ExponentialSampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.samplers.StatefulMonteCarloSampler;
 
 public class TransactionTimeSamplerBuilder
 {
@@ -41,16 +38,10 @@ public class TransactionTimeSamplerBuilder
 		this.transactionParameters = parameters;
 	}
 
-	public Sampler<Double> build()
+	public NextTransactionTimeSampler build()
 	{
 		double lambda = 1.0 / transactionParameters.getAverageTransactionTriggerTime();
-		Sampler<Double> arrivalTimeSampler = new ExponentialSampler(lambda, seedFactory);
-		Sampler<Double> proposedTimeSampler = new ProposedPurchaseTimeSampler(customerInventory,
-				arrivalTimeSampler);
 
-		return new StatefulMonteCarloSampler<Double>(proposedTimeSampler,
-				new TransactionTimePDF(),
-				0.0,
-				seedFactory);
+		return new NextTransactionTimeSampler(customerInventory, lambda, seedFactory);
 	}
 }
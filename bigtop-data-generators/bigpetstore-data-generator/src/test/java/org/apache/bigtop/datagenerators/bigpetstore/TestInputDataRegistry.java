@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.ProductsCollectionSize;
+import org.apache.bigtop.datagenerators.bigpetstore.InputDataRegistry.CachePolicy;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.namegenerator.NameTables;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestInputDataRegistry
+{
+	@After
+	public void tearDown()
+	{
+		InputDataRegistry.setCachePolicy(CachePolicy.STRONG);
+		InputDataRegistry.clear();
+	}
+
+	@Test
+	public void testProductCategories() throws Exception
+	{
+		List<ProductCategory> categories = InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL);
+
+		assertFalse(categories.isEmpty());
+		assertSame(categories, InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL));
+		assertNotSame(categories, InputDataRegistry.getProductCategories(ProductsCollectionSize.MEDIUM));
+
+		InputDataRegistry.clear();
+		List<ProductCategory> reloaded = InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL);
+		assertNotSame(categories, reloaded);
+		assertEquals(categories.size(), reloaded.size());
+	}
+
+	@Test
+	public void testSoftPolicy() throws Exception
+	{
+		InputDataRegistry.setCachePolicy(CachePolicy.SOFT);
+		assertEquals(CachePolicy.SOFT, InputDataRegistry.getCachePolicy());
+
+		// strongly reachable through the caller, so the entry is kept
+		List<ProductCategory> categories = InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL);
+		assertSame(categories, InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL));
+
+		InputDataRegistry.setCachePolicy(CachePolicy.STRONG);
+		assertSame(categories, InputDataRegistry.getProductCategories(ProductsCollectionSize.SMALL));
+	}
+
+	@Test
+	public void testNameTables() throws Exception
+	{
+		assertSame(InputDataRegistry.getNameTables(), InputDataRegistry.getNameTables());
+		assertSame(InputDataRegistry.getNameTables(), NameTables.getInstance());
+
+		NameTables tables = NameTables.getInstance();
+		InputDataRegistry.clear();
+		assertNotSame(tables, NameTables.getInstance());
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.ProductsCollectionSize;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.purchase.PurchasingModel;
+import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestTransactionScheduler
+{
+	private static final int N_CUSTOMERS = 5;
+	private static final double SIMULATION_TIME = 60.0;
+
+	private List<TransactionGenerator> createGenerators(SeedFactory seedFactory) throws Exception
+	{
+		List<ProductCategory> categories = new ProductGenerator(ProductsCollectionSize.SMALL).generate();
+		PurchasingModel<?> profile = new PurchasingModelGenerator(categories, seedFactory).generate();
+
+		Location location = new Location("11111", Pair.of(33.0, -111.0), "Tempe", "AZ", 30000.0, 100);
+		Store store = new Store(0, "Store_0", location);
+
+		List<TransactionGenerator> generators = Lists.newArrayList();
+		for(int i = 0; i < N_CUSTOMERS; i++)
+		{
+			Customer customer = new Customer(i, Pair.of("First", "Last"), store, location);
+			generators.add(new TransactionGenerator(customer, profile, categories, seedFactory));
+		}
+
+		return generators;
+	}
+
+	@Test
+	public void testTimeOrder() throws Exception
+	{
+		TransactionScheduler scheduler = new TransactionScheduler(SIMULATION_TIME);
+		for(TransactionGenerator generator : createGenerators(new SeedFactory(1234)))
+			scheduler.addCustomer(generator);
+
+		assertEquals(N_CUSTOMERS, scheduler.getActiveCustomers());
+
+		List<Transaction> scheduled = Lists.newArrayList();
+		double windowStart = Double.NEGATIVE_INFINITY;
+		for(double windowEnd = 7.0; scheduler.hasNext(); windowEnd += 7.0)
+		{
+			List<Transaction> window = scheduler.advance(windowEnd);
+			for(Transaction transaction : window)
+			{
+				assertTrue(transaction.getDateTime() <= windowEnd);
+				assertTrue(transaction.getDateTime() > windowStart);
+			}
+			scheduled.addAll(window);
+			windowStart = windowEnd;
+		}
+
+		assertFalse(scheduled.isEmpty());
+		assertEquals(0, scheduler.getActiveCustomers());
+		for(int i = 1; i < scheduled.size(); i++)
+		{
+			assertTrue(scheduled.get(i - 1).getDateTime() <= scheduled.get(i).getDateTime());
+		}
+
+		// same transactions as generating each customer's timeline in turn
+		List<Transaction> sequential = Lists.newArrayList();
+		for(TransactionGenerator generator : createGenerators(new SeedFactory(1234)))
+		{
+			while(true)
+			{
+				Transaction transaction = generator.generate();
+				if(transaction.getDateTime() > SIMULATION_TIME)
+					break;
+				sequential.add(transaction);
+			}
+		}
+
+		assertEquals(sequential.size(), scheduled.size());
+		for(int customer = 0; customer < N_CUSTOMERS; customer++)
+		{
+			List<Double> expected = Lists.newArrayList();
+			for(Transaction transaction : sequential)
+				if(transaction.getCustomer().getId() == customer)
+					expected.add(transaction.getDateTime());
+
+			List<Double> actual = Lists.newArrayList();
+			for(Transaction transaction : scheduled)
+				if(transaction.getCustomer().getId() == customer)
+					actual.add(transaction.getDateTime());
+
+			assertEquals(expected, actual);
+		}
+	}
+}
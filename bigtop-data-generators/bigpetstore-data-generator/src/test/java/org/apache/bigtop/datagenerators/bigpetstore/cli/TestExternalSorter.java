@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestExternalSorter
+{
+	private List<String> sort(int memoryBudget, int nRecords, boolean expectSpills) throws Exception
+	{
+		return sort(memoryBudget, nRecords, expectSpills, ExternalSorter.DEFAULT_MAX_FAN_IN);
+	}
+
+	private List<String> sort(int memoryBudget, int nRecords, boolean expectSpills, int maxFanIn) throws Exception
+	{
+		File tempDir = new File(System.getProperty("java.io.tmpdir"));
+		ExternalSorter sorter = new ExternalSorter(memoryBudget, tempDir, maxFanIn);
+
+		Random rng = new Random(1234);
+		for(int i = 0; i < nRecords; i++)
+		{
+			int key = rng.nextInt(50);
+			sorter.add(key, String.format("%02d,%06d\n", key, i).getBytes());
+		}
+
+		assertEquals(expectSpills, sorter.getSpilledRuns() > 0);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sorter.writeSorted(out);
+		assertEquals(0, sorter.getSpilledRuns());
+
+		return Lists.newArrayList(new String(out.toByteArray()).split("\n"));
+	}
+
+	private void assertStablySorted(List<String> lines, int nRecords)
+	{
+		assertEquals(nRecords, lines.size());
+		for(int i = 1; i < lines.size(); i++)
+		{
+			// keys ascend; insertion order breaks ties
+			assertTrue(lines.get(i - 1).compareTo(lines.get(i)) < 0);
+		}
+	}
+
+	@Test
+	public void testInMemory() throws Exception
+	{
+		assertStablySorted(sort(1 << 20, 1000, false), 1000);
+	}
+
+	@Test
+	public void testSpill() throws Exception
+	{
+		// 10 records per run
+		assertStablySorted(sort(100, 1000, true), 1000);
+	}
+
+	@Test
+	public void testMultiPassMerge() throws Exception
+	{
+		// 100 runs merged 3 at a time over several passes
+		assertStablySorted(sort(100, 1000, true, 3), 1000);
+	}
+
+	@Test
+	public void testSortableKey() throws Exception
+	{
+		double[] values = { Double.NEGATIVE_INFINITY, -2.0, -1.0, -0.5, 0.0, 0.5, 1.0, 2.0, Double.POSITIVE_INFINITY };
+		for(int i = 1; i < values.length; i++)
+		{
+			assertTrue(ExternalSorter.sortableKey(values[i - 1]) < ExternalSorter.sortableKey(values[i]));
+		}
+	}
+}
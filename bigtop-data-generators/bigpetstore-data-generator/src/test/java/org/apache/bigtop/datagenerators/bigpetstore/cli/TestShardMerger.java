@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
+import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestShardMerger
+{
+	private static final int N_SHARDS = 3;
+	private static final String[] FILES = { "stores.txt", "products.txt", "purchasing_profiles.txt",
+			"customers.txt", "transactions.txt" };
+
+	private File createTempDir() throws IOException
+	{
+		File dir = Files.createTempDirectory("bigpetstore").toFile();
+		dir.deleteOnExit();
+
+		return dir;
+	}
+
+	private void delete(File dir)
+	{
+		for(File file : dir.listFiles())
+			file.delete();
+		dir.delete();
+	}
+
+	private void run(String sortBy, String... args) throws Exception
+	{
+		List<String> options = Lists.newArrayList("--sort-by", sortBy);
+		options.addAll(Lists.newArrayList(args));
+
+		Driver driver = new Driver()
+		{
+			@Override
+			protected InputData loadInputData()
+			{
+				List<Location> zipcodes = Arrays.asList(new Location[] {
+						new Location("11111", Pair.of(1.0, 1.0), "AZ", "Tempte", 30000.0, 100),
+						new Location("22222", Pair.of(2.0, 2.0), "AZ", "Phoenix", 45000.0, 200),
+						new Location("33333", Pair.of(3.0, 3.0), "AZ", "Flagstaff", 60000.0, 300)
+						});
+
+				return new InputData(zipcodes);
+			}
+		};
+		driver.run(options.toArray(new String[options.size()]));
+	}
+
+	private void assertMergeMatchesSingleRun(String sortBy) throws Exception
+	{
+		String[] params = { "2", "20", "2", "30.0", "1234" };
+
+		File singleDir = createTempDir();
+		File mergedDir = createTempDir();
+		List<File> shardDirs = Lists.newArrayList();
+		for(int shard = 0; shard < N_SHARDS; shard++)
+			shardDirs.add(createTempDir());
+
+		try
+		{
+			List<String> args = Lists.newArrayList(singleDir.getPath());
+			args.addAll(Lists.newArrayList(params));
+			run(sortBy, args.toArray(new String[args.size()]));
+
+			List<String> mergeArgs = Lists.newArrayList("--merge", mergedDir.getPath());
+			for(int shard = 0; shard < N_SHARDS; shard++)
+			{
+				args = Lists.newArrayList("--shard", shard + "/" + N_SHARDS, shardDirs.get(shard).getPath());
+				args.addAll(Lists.newArrayList(params));
+				run(sortBy, args.toArray(new String[args.size()]));
+
+				mergeArgs.add(shardDirs.get(shard).getPath());
+			}
+			run(sortBy, mergeArgs.toArray(new String[mergeArgs.size()]));
+
+			for(String name : FILES)
+			{
+				byte[] expected = Files.readAllBytes(new File(singleDir, name).toPath());
+				byte[] merged = Files.readAllBytes(new File(mergedDir, name).toPath());
+				assertTrue(name + " is empty", expected.length > 0);
+				assertArrayEquals(name + " sorted by " + sortBy, expected, merged);
+			}
+		}
+		finally
+		{
+			delete(singleDir);
+			delete(mergedDir);
+			for(File shardDir : shardDirs)
+				delete(shardDir);
+		}
+	}
+
+	@Test
+	public void testGenerated() throws Exception
+	{
+		assertMergeMatchesSingleRun("generated");
+	}
+
+	@Test
+	public void testTime() throws Exception
+	{
+		assertMergeMatchesSingleRun("time");
+	}
+
+	@Test
+	public void testStore() throws Exception
+	{
+		assertMergeMatchesSingleRun("store");
+	}
+
+	@Test
+	public void testCustomer() throws Exception
+	{
+		assertMergeMatchesSingleRun("customer");
+	}
+}
@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Customer;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Store;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Transaction;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.TransactionBuffer;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.InputData;
+import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TestSimulation
+{
+	private static final int N_CUSTOMERS = 10;
+	private static final int N_SHARDS = 3;
+
+	/**
+	 * Keeps only the first periodic checkpoint, as if the run had died
+	 * right after writing it.
+	 */
+	private static class InterruptedSimulation extends Simulation
+	{
+		boolean checkpointed = false;
+
+		public InterruptedSimulation(InputData inputData, double simulationTime)
+		{
+			super(inputData, 2, N_CUSTOMERS, 2, simulationTime, 1234);
+		}
+
+		@Override
+		public void checkpoint(File file) throws IOException
+		{
+			if(!checkpointed)
+			{
+				checkpointed = true;
+				super.checkpoint(file);
+			}
+		}
+	}
+
+	/**
+	 * Collects the described transactions, using their count as the offset.
+	 */
+	private static class ListSink implements TransactionSink
+	{
+		final List<String> records;
+
+		public ListSink(List<String> records)
+		{
+			this.records = records;
+		}
+
+		public long write(TransactionBuffer transactions)
+		{
+			records.addAll(describe(transactions));
+			return records.size();
+		}
+	}
+
+	private InputData createInputData()
+	{
+		List<Location> zipcodes = Arrays.asList(new Location[] {
+				new Location("11111", Pair.of(1.0, 1.0), "AZ", "Tempte", 30000.0, 100),
+				new Location("22222", Pair.of(2.0, 2.0), "AZ", "Phoenix", 45000.0, 200),
+				new Location("33333", Pair.of(3.0, 3.0), "AZ", "Flagstaff", 60000.0, 300)
+				});
+
+		return new InputData(zipcodes);
+	}
+
+	private Simulation simulate(int shard, int nShards) throws Exception
+	{
+		return simulate(shard, nShards, 30.0);
+	}
+
+	private Simulation simulate(int shard, int nShards, double simulationTime) throws Exception
+	{
+		Simulation simulation = new Simulation(createInputData(), 2, N_CUSTOMERS, 2, simulationTime, 1234,
+				shard, nShards);
+		simulation.simulate();
+
+		return simulation;
+	}
+
+	private List<String> describeStores(List<Store> stores)
+	{
+		List<String> records = Lists.newArrayList();
+		for(Store store : stores)
+			records.add(store.getId() + "," + store.getLocation().getZipcode());
+
+		return records;
+	}
+
+	private List<String> describeCustomers(List<Customer> customers)
+	{
+		List<String> records = Lists.newArrayList();
+		for(Customer customer : customers)
+		{
+			records.add(customer.getId() + "," + customer.getName() + ","
+					+ customer.getStore().getId() + "," + customer.getLocation().getZipcode());
+		}
+
+		return records;
+	}
+
+	private static List<String> describe(List<Transaction> transactions)
+	{
+		List<String> records = Lists.newArrayList();
+		for(Transaction transaction : transactions)
+		{
+			records.add(transaction.getCustomer().getId() + "," + transaction.getId() + ","
+					+ transaction.getDateTime() + "," + transaction.getProducts());
+		}
+
+		return records;
+	}
+
+	@Test
+	public void testShards() throws Exception
+	{
+		Simulation single = simulate(0, 1);
+
+		List<String> customers = Lists.newArrayList();
+		List<Transaction> transactions = Lists.newArrayList();
+		for(int shard = 0; shard < N_SHARDS; shard++)
+		{
+			Simulation simulation = simulate(shard, N_SHARDS);
+			assertEquals(describeStores(single.getStores()), describeStores(simulation.getStores()));
+
+			customers.addAll(describeCustomers(simulation.getCustomers()));
+			transactions.addAll(simulation.getTransactions());
+		}
+
+		assertEquals(describeCustomers(single.getCustomers()), customers);
+
+		// ties in time go to the lower customer, and so to the lower shard
+		Collections.sort(transactions, new Comparator<Transaction>()
+		{
+			public int compare(Transaction a, Transaction b)
+			{
+				return Double.compare(a.getDateTime(), b.getDateTime());
+			}
+		});
+
+		List<String> expected = describe(single.getTransactions());
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, describe(transactions));
+	}
+
+	@Test
+	public void testUniqueTransactionIds() throws Exception
+	{
+		Set<Long> ids = Sets.newHashSet();
+		int count = 0;
+		for(int shard = 0; shard < N_SHARDS; shard++)
+		{
+			for(Transaction transaction : simulate(shard, N_SHARDS).getTransactions())
+			{
+				ids.add(transaction.getId());
+				count++;
+			}
+		}
+
+		assertFalse(ids.isEmpty());
+		assertEquals(count, ids.size());
+	}
+
+	@Test
+	public void testCheckpointExtend() throws Exception
+	{
+		Simulation first = simulate(0, 1, 20.0);
+
+		File checkpoint = File.createTempFile("simulation", ".ckpt");
+		checkpoint.deleteOnExit();
+		first.checkpoint(checkpoint);
+
+		Simulation resumed = Simulation.restore(checkpoint, createInputData());
+		assertEquals(20.0, resumed.getSimulationTime(), 1e-9);
+		resumed.extend(40.0);
+		resumed.simulate();
+
+		List<String> transactions = Lists.newArrayList();
+		transactions.addAll(describe(first.getTransactions()));
+		transactions.addAll(describe(resumed.getTransactions()));
+
+		Simulation single = simulate(0, 1, 40.0);
+		assertFalse(resumed.getTransactions().isEmpty());
+		assertEquals(describe(single.getTransactions()), transactions);
+	}
+
+	@Test
+	public void testResumeUnfinishedExtend() throws Exception
+	{
+		File checkpoint = File.createTempFile("simulation", ".ckpt");
+		checkpoint.deleteOnExit();
+
+		Simulation interrupted = new InterruptedSimulation(createInputData(), 20.0);
+		interrupted.setCheckpoint(checkpoint, 10.0);
+		interrupted.simulate();
+
+		Simulation resumed = Simulation.restore(checkpoint, createInputData());
+		int flushed = (int) resumed.getFlushedTransactions();
+		assertTrue(flushed > 0);
+		assertTrue(flushed < interrupted.getTransactions().size());
+		resumed.extend(40.0);
+		resumed.simulate();
+
+		// the checkpoint only records how many transactions came before it
+		List<String> transactions = Lists.newArrayList();
+		transactions.addAll(describe(interrupted.getTransactions().subList(0, flushed)));
+		transactions.addAll(describe(resumed.getTransactions()));
+
+		Simulation single = simulate(0, 1, 40.0);
+		assertEquals(describe(single.getTransactions()), transactions);
+	}
+
+	@Test
+	public void testResumeAppendsToOutput() throws Exception
+	{
+		File checkpoint = File.createTempFile("simulation", ".ckpt");
+		checkpoint.deleteOnExit();
+
+		List<String> output = Lists.newArrayList();
+		Simulation interrupted = new InterruptedSimulation(createInputData(), 30.0);
+		interrupted.setCheckpoint(checkpoint, 10.0);
+		interrupted.setTransactionSink(new ListSink(output));
+		interrupted.simulate();
+		assertTrue(interrupted.getTransactions().isEmpty());
+
+		Simulation resumed = Simulation.restore(checkpoint, createInputData());
+		assertEquals(resumed.getFlushedTransactions(), resumed.getOutputOffset());
+		assertTrue(resumed.getOutputOffset() < output.size());
+
+		// drop what was written after the checkpoint, as a resumed run does
+		output.subList((int) resumed.getOutputOffset(), output.size()).clear();
+		resumed.setTransactionSink(new ListSink(output));
+		resumed.simulate();
+
+		Simulation single = simulate(0, 1, 30.0);
+		assertEquals(describe(single.getTransactions()), output);
+	}
+}
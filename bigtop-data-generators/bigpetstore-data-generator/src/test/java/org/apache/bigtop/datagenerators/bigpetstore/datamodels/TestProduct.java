@@ -16,7 +16,10 @@
 package org.apache.bigtop.datagenerators.bigpetstore.datamodels;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
 
@@ -74,4 +77,66 @@ public class TestProduct
 		assertEquals((long) product.getFieldValueAsLong(Constants.PRODUCT_QUANTITY), 120L);
 	}
 
+	@Test
+	public void testFieldOrder()
+	{
+		Map<String, Object> fields = Maps.newLinkedHashMap();
+		fields.put(Constants.PRODUCT_CATEGORY, "kitty litter");
+		fields.put("brand", "Pretty Cat");
+		fields.put(Constants.PRODUCT_QUANTITY, 7.0);
+
+		Map<String, Object> reversed = Maps.newLinkedHashMap();
+		reversed.put(Constants.PRODUCT_QUANTITY, 7.0);
+		reversed.put("brand", "Pretty Cat");
+		reversed.put(Constants.PRODUCT_CATEGORY, "kitty litter");
+
+		Product product = new Product(fields);
+		Product other = new Product(reversed);
+
+		assertSame(product.getSchema(), other.getSchema());
+		assertEquals(product, other);
+		assertEquals(product.hashCode(), other.hashCode());
+		assertEquals("Pretty Cat", other.getFieldValue("brand"));
+	}
+
+	@Test
+	public void testSlots()
+	{
+		Map<String, Object> fields = Maps.newHashMap();
+		fields.put(Constants.PRODUCT_CATEGORY, "poop bags");
+		fields.put(Constants.PRODUCT_QUANTITY, 120.0);
+		fields.put(Constants.PRODUCT_PRICE, 12.80);
+
+		Product product = new Product(fields);
+
+		assertEquals("poop bags", product.getCategory());
+		assertEquals(120.0, product.getQuantity(), 1e-5);
+		assertEquals(12.80, product.getPrice(), 1e-5);
+		assertTrue(Double.isNaN(product.getUnitPrice()));
+		assertEquals(-1, product.getId());
+	}
+
+	@Test
+	public void testEquality()
+	{
+		Map<String, Object> fields = Maps.newHashMap();
+		fields.put(Constants.PRODUCT_CATEGORY, "poop bags");
+		fields.put(Constants.PRODUCT_QUANTITY, 120.0);
+
+		Product product1 = new Product(fields);
+		Product product2 = new Product(fields).withId(3);
+
+		assertSame(product1.getSchema(), product2.getSchema());
+		assertEquals(product1, product2);
+		assertEquals(product1.hashCode(), product2.hashCode());
+		assertEquals(product1.toString(), product2.toString());
+		assertEquals(3, product2.getId());
+
+		fields.put(Constants.PRODUCT_QUANTITY, 60.0);
+		Product product3 = new Product(fields);
+
+		assertSame(product1.getSchema(), product3.getSchema());
+		assertFalse(product1.equals(product3));
+	}
+
 }
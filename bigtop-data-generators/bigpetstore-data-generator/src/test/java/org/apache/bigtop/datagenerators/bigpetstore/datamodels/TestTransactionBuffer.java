@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.datamodels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.ProductsCollectionSize;
+import org.apache.bigtop.datagenerators.bigpetstore.ProductGenerator;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.locations.Location;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestTransactionBuffer
+{
+	private static final int N_TRANSACTIONS = 3000;
+
+	private final List<ProductCategory> categories = new ProductGenerator(ProductsCollectionSize.SMALL).generate();
+	private final List<Store> stores = Lists.newArrayList();
+	private final List<Customer> customers = Lists.newArrayList();
+
+	public TestTransactionBuffer()
+	{
+		Location location = new Location("11111", Pair.of(33.0, -111.0), "Tempe", "AZ", 30000.0, 100);
+		for(int i = 0; i < 2; i++)
+			stores.add(new Store(10 + i, "Store_" + (10 + i), location));
+		for(int i = 0; i < 5; i++)
+			customers.add(new Customer(100 + i, Pair.of("First", "Last"), stores.get(i % 2), location));
+	}
+
+	private List<Transaction> createTransactions()
+	{
+		Random random = new Random(1234);
+		List<Transaction> transactions = Lists.newArrayList();
+		for(int i = 0; i < N_TRANSACTIONS; i++)
+		{
+			List<Product> products = Lists.newArrayList();
+			for(int j = random.nextInt(4); j >= 0; j--)
+			{
+				List<Product> categoryProducts = categories.get(random.nextInt(categories.size())).getProducts();
+				products.add(categoryProducts.get(random.nextInt(categoryProducts.size())));
+			}
+
+			Customer customer = customers.get(random.nextInt(customers.size()));
+			transactions.add(new Transaction(i, customer, customer.getStore(), i * 0.01, products));
+		}
+
+		return transactions;
+	}
+
+	private void assertSameTransactions(List<Transaction> expected, TransactionBuffer buffer)
+	{
+		assertEquals(expected.size(), buffer.size());
+
+		int items = 0;
+		for(int i = 0; i < expected.size(); i++)
+		{
+			Transaction transaction = expected.get(i);
+			assertEquals(transaction.getId(), buffer.getId(i));
+			assertEquals(transaction.getCustomer().getId(), buffer.getCustomer(i).getId());
+			assertEquals(transaction.getStore().getId(), buffer.getStore(i).getId());
+			assertEquals(transaction.getDateTime(), buffer.getDateTime(i), 0.0);
+			assertEquals(transaction.getProducts(), buffer.get(i).getProducts());
+			items += transaction.getProducts().size();
+		}
+
+		assertEquals(items, buffer.getItemCount());
+	}
+
+	@Test
+	public void testAppend()
+	{
+		for(boolean offHeap : Arrays.asList(false, true))
+		{
+			List<Transaction> transactions = createTransactions();
+			TransactionBuffer buffer = new TransactionBuffer(stores, customers, categories, offHeap);
+			buffer.addAll(transactions);
+
+			assertSameTransactions(transactions, buffer);
+			assertSame(customers.get(0), buffer.getCustomer(indexOfCustomer(buffer, 100)));
+		}
+	}
+
+	private int indexOfCustomer(TransactionBuffer buffer, int customerId)
+	{
+		for(int i = 0; i < buffer.size(); i++)
+		{
+			if(buffer.getCustomerId(i) == customerId)
+				return i;
+		}
+
+		return -1;
+	}
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		List<Transaction> transactions = createTransactions();
+		TransactionBuffer buffer = new TransactionBuffer(stores, customers, categories, true);
+		buffer.addAll(transactions);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(bytes);
+		output.writeObject(buffer);
+		output.close();
+
+		ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		TransactionBuffer restored = (TransactionBuffer) input.readObject();
+		input.close();
+
+		assertSameTransactions(transactions, restored);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownProduct()
+	{
+		TransactionBuffer buffer = new TransactionBuffer(stores, customers, categories.subList(0, 1), false);
+		Product product = categories.get(1).getProducts().get(0);
+
+		buffer.add(new Transaction(0, customers.get(0), stores.get(0), 0.0, Arrays.asList(product)));
+	}
+}
@@ -15,6 +15,7 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.customer;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -54,4 +55,14 @@ public class TestCustomerLocationPDF
 		assertTrue(prob > 0.0);
 	}
 
+	@Test
+	public void testCutoffDistance() throws Exception
+	{
+		double cutoff = CustomerLocationPDF.cutoffDistance(5.0, 1e-4);
+
+		double x = cutoff / 5.0;
+		assertEquals(1e-4, Math.exp(-x) * (1.0 + x), 1e-10);
+		assertTrue(CustomerLocationPDF.cutoffDistance(5.0, 1e-8) > cutoff);
+	}
+
 }
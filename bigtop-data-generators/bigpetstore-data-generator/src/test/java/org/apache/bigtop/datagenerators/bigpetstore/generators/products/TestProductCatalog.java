@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.FieldPredicate;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules.Rule;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class TestProductCatalog
+{
+	private Map<String, Collection<ProductFieldValue>> createFieldValues()
+	{
+		Map<String, Collection<ProductFieldValue>> fieldValues = Maps.newHashMap();
+
+		List<ProductFieldValue> brands = Lists.newArrayList();
+		for(int i = 0; i < 10; i++)
+			brands.add(new ProductFieldValue("Brand " + i, i, 1.0));
+		fieldValues.put("brand", brands);
+
+		fieldValues.put(Constants.PRODUCT_QUANTITY, Arrays.asList(
+				new ProductFieldValue(5.0, 0.0, 1.0),
+				new ProductFieldValue(15.0, 0.0, 2.5),
+				new ProductFieldValue(30.0, 0.0, 4.0)));
+
+		List<ProductFieldValue> flavors = Lists.newArrayList();
+		for(int i = 0; i < 11; i++)
+			flavors.add(new ProductFieldValue("Flavor " + i, 0.0, 1.0));
+		fieldValues.put("flavor", flavors);
+
+		return fieldValues;
+	}
+
+	@Test
+	public void testMatchesIterator() throws Exception
+	{
+		Map<String, Collection<ProductFieldValue>> fieldValues = createFieldValues();
+		Rule rule = new FieldPredicate("flavor", "Flavor 3", "Flavor 7");
+
+		ProductCatalog catalog = new ProductCatalog(fieldValues, rule, 2.0, "dogFood");
+		assertEquals(10 * 3 * 11, catalog.getCombinations());
+		assertEquals(10 * 3 * 9, catalog.size());
+
+		Iterator<Product> expected = new ProductIterator(fieldValues, rule, 2.0, "dogFood");
+		for(int i = 0; i < catalog.size(); i++)
+		{
+			Product product = catalog.get(i);
+			assertEquals(i, product.getId());
+			assertEquals(expected.next(), product);
+		}
+		assertFalse(expected.hasNext());
+
+		int count = 0;
+		for(Product product : catalog)
+		{
+			assertFalse(rule.ruleMatches(product));
+			count++;
+		}
+		assertEquals(catalog.size(), count);
+	}
+
+	@Test
+	public void testNoExclusions() throws Exception
+	{
+		ProductCatalog catalog = new ProductCatalog(createFieldValues(), new FieldPredicate("flavor"),
+				2.0, "dogFood");
+
+		assertEquals(catalog.getCombinations(), catalog.size());
+		for(long c = 0; c < catalog.getCombinations(); c++)
+			assertTrue(catalog.isValid(c));
+	}
+
+	@Test
+	public void testUncompiledRule() throws Exception
+	{
+		// price is computed from several fields so the rule is interpreted
+		Map<String, Collection<ProductFieldValue>> fieldValues = createFieldValues();
+		Rule rule = new FieldPredicate(Constants.PRODUCT_PRICE, "never");
+
+		ProductCatalog catalog = new ProductCatalog(fieldValues, rule, 2.0, "dogFood");
+		assertEquals(catalog.getCombinations(), catalog.size());
+	}
+}
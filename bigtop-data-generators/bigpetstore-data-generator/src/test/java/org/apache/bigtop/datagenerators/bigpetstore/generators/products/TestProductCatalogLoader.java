@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.PetSpecies;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.collections.SmallProductCollection;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class TestProductCatalogLoader
+{
+	private static final String DOG_FOOD =
+			"{ \"category\" : \"dry dog food\", \"species\" : [ \"DOG\" ], \"triggerTransaction\" : true,\n" +
+			"  \"dailyUsageRate\" : 2.0, \"amountUsedPerPetAverage\" : 0.25, \"amountUsedPerPetVariance\" : 0.1,\n" +
+			"  \"triggerTransactionRate\" : 2.0, \"triggerPurchaseRate\" : 7.0, \"basePrice\" : 2.0,\n" +
+			"  \"fields\" : {\n" +
+			"    \"brand\" : [ [ \"Wellfed\", 0.0, 1.0 ], [ \"Happy Pup\", 0.67, 1.0 ], [ \"Dog Days\", 1.0, 1.0 ] ],\n" +
+			"    \"flavor\" : [ [ \"Chicken\", 0.0, 1.0 ], [ \"Pork\", 0.0, 1.0 ], [ \"Lamb & Rice\", 0.0, 1.0 ],\n" +
+			"                 [ \"Fish & Potato\", 0.0, 1.0 ] ],\n" +
+			"    \"quantity\" : [ [ 4.5, 0.0, 4.5 ], [ 15.0, 0.0, 15.0 ], [ 30.0, 0.0, 30.0 ] ] } }";
+
+	private static final String CAT_TREATS =
+			"{ \"category\" : \"cat treats\", \"species\" : [ \"cat\" ],\n" +
+			"  \"fields\" : {\n" +
+			"    \"brand\" : [ [ \"Pretty Cat\", 0.0, 1.0 ], [ \"Feisty Feline\", 0.0, 1.0 ] ],\n" +
+			"    \"flavor\" : [ [ \"Tuna\", 0.0, 1.0 ], [ \"Salmon\", 0.0, 1.0 ], [ \"Catnip\", 0.0, 1.0 ] ],\n" +
+			"    \"quantity\" : [ [ 1.0, 0.0, 1.0 ], [ 2.0, 0.0, 2.0 ] ] },\n" +
+			"  \"exclusions\" : [\n" +
+			"    { \"and\" : [ { \"field\" : \"brand\", \"in\" : [ \"Pretty Cat\" ] },\n" +
+			"                { \"not\" : { \"field\" : \"flavor\", \"in\" : [ \"Tuna\" ] } } ] },\n" +
+			"    { \"or\" : [ { \"field\" : \"flavor\", \"in\" : [ \"Catnip\" ] } ] } ] }";
+
+	private File writeCatalog(String ... categories) throws Exception
+	{
+		File file = File.createTempFile("catalog", ".json");
+		file.deleteOnExit();
+		new File(file.getPath() + ".cache").deleteOnExit();
+
+		StringBuilder json = new StringBuilder("{ \"categories\" : [\n");
+		for(int i = 0; i < categories.length; i++)
+		{
+			if(i > 0)
+				json.append(",\n");
+			json.append(categories[i]);
+		}
+		json.append(" ] }\n");
+		Files.write(json.toString(), file, Charsets.UTF_8);
+
+		return file;
+	}
+
+	@Test
+	public void testMatchesBuiltInCollection() throws Exception
+	{
+		File file = writeCatalog(DOG_FOOD);
+		List<ProductCategory> categories = new ProductCatalogLoader(file).load();
+
+		ProductCategory expected = new SmallProductCollection().generateProductCategory().get(0);
+
+		assertEquals(1, categories.size());
+		ProductCategory category = categories.get(0);
+		assertEquals(expected.getCategoryLabel(), category.getCategoryLabel());
+		assertEquals(expected.getApplicableSpecies(), category.getApplicableSpecies());
+		assertEquals(expected.getFieldNames(), category.getFieldNames());
+		assertEquals(expected.getTriggerTransaction(), category.getTriggerTransaction());
+		assertEquals(expected.getBaseAmountUsedAverage(), category.getBaseAmountUsedAverage());
+		assertEquals(expected.getPurchaseTriggerRate(), category.getPurchaseTriggerRate());
+		assertEquals(expected.getProducts(), category.getProducts());
+	}
+
+	@Test
+	public void testExclusionRules() throws Exception
+	{
+		File file = writeCatalog(CAT_TREATS);
+		ProductCategory category = new ProductCatalogLoader(file).load().get(0);
+
+		assertEquals(PetSpecies.CAT, category.getApplicableSpecies().iterator().next());
+		// Feisty Feline in Tuna and Salmon, Pretty Cat in Tuna, two sizes each
+		assertEquals(6, category.getProducts().size());
+		for(Product product : category.getProducts())
+		{
+			assertFalse(product.getFieldValue("flavor").equals("Catnip"));
+			if(product.getFieldValue("brand").equals("Pretty Cat"))
+				assertEquals("Tuna", product.getFieldValue("flavor"));
+		}
+	}
+
+	@Test
+	public void testNumericExclusion() throws Exception
+	{
+		File file = writeCatalog(DOG_FOOD.replace(" } }", " },\n" +
+				"  \"exclusions\" : [ { \"field\" : \"quantity\", \"in\" : [ 4.5, 30 ] } ] }"));
+		ProductCategory category = new ProductCatalogLoader(file).load().get(0);
+
+		// 3 brands and 4 flavors, only in the 15 lb size
+		assertEquals(12, category.getProducts().size());
+		for(Product product : category.getProducts())
+			assertEquals(15.0, product.getFieldValue("quantity"));
+	}
+
+	@Test
+	public void testCache() throws Exception
+	{
+		File file = writeCatalog(DOG_FOOD);
+		ProductCatalogLoader loader = new ProductCatalogLoader(file);
+
+		List<ProductCategory> built = loader.load();
+		assertTrue(loader.getCacheFile().exists());
+
+		List<ProductCategory> cached = loader.load();
+		assertEquals(built.get(0).getProducts(), cached.get(0).getProducts());
+		for(int i = 0; i < cached.get(0).getProducts().size(); i++)
+			assertEquals(i, cached.get(0).getProducts().get(i).getId());
+
+		// editing the catalog invalidates the cache
+		Files.write(Files.toString(file, Charsets.UTF_8).replace(DOG_FOOD, DOG_FOOD + ",\n" + CAT_TREATS),
+				file, Charsets.UTF_8);
+		assertEquals(2, loader.load().size());
+	}
+
+	@Test
+	public void testCacheKeepsExclusions() throws Exception
+	{
+		File file = writeCatalog(DOG_FOOD, CAT_TREATS);
+		ProductCatalogLoader loader = new ProductCatalogLoader(file);
+
+		List<ProductCategory> built = loader.load();
+		List<ProductCategory> cached = loader.load();
+
+		assertEquals(2, cached.size());
+		for(int i = 0; i < built.size(); i++)
+		{
+			assertEquals(built.get(i).getCategoryLabel(), cached.get(i).getCategoryLabel());
+			assertEquals(built.get(i).getApplicableSpecies(), cached.get(i).getApplicableSpecies());
+			assertEquals(built.get(i).getFieldNames(), cached.get(i).getFieldNames());
+			assertEquals(built.get(i).getDailyUsageRate(), cached.get(i).getDailyUsageRate());
+			assertEquals(built.get(i).getProducts(), cached.get(i).getProducts());
+		}
+		assertEquals(6, cached.get(1).getProducts().size());
+	}
+
+	@Test
+	public void testSkipCache() throws Exception
+	{
+		File file = writeCatalog(DOG_FOOD);
+		ProductCatalogLoader loader = new ProductCatalogLoader(file);
+
+		assertEquals(1, loader.load(false).size());
+		assertFalse(loader.getCacheFile().exists());
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.products.rules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+public class TestRuleCompiler
+{
+	private static final List<String> FIELDS = Arrays.asList("brand", "flavor");
+	private static final List<List<String>> VALUES = Arrays.asList(
+			Arrays.asList("Chef Corgi", "Happy Pup", "Dog Days"),
+			Arrays.asList("chicken", "fish", "lamb", "beef"));
+
+	private RuleCompiler createCompiler()
+	{
+		return new RuleCompiler(FIELDS, VALUES, ImmutableMap.of("category", "dogFood"),
+				ImmutableSet.of("price"));
+	}
+
+	@Test
+	public void testMatchesInterpreted()
+	{
+		Rule rule = new OrRule(
+				new AndRule(new FieldPredicate("brand", "Chef Corgi"), new NotRule(new FieldPredicate("flavor", "fish"))),
+				new FieldPredicate("flavor", "beef", "lamb"),
+				new AndRule(new FieldPredicate("category", "dogFood"), new FieldPredicate("brand", "Dog Days")));
+
+		CompiledRule compiled = createCompiler().compile(rule);
+		Assert.assertNotNull(compiled);
+
+		for(int brand = 0; brand < VALUES.get(0).size(); brand++)
+		{
+			for(int flavor = 0; flavor < VALUES.get(1).size(); flavor++)
+			{
+				Map<String, Object> fields = Maps.newHashMap();
+				fields.put("brand", VALUES.get(0).get(brand));
+				fields.put("flavor", VALUES.get(1).get(flavor));
+				fields.put("category", "dogFood");
+				Product product = new Product(fields);
+
+				Assert.assertEquals(rule.ruleMatches(product), compiled.matches(new int[] { brand, flavor }));
+			}
+		}
+	}
+
+	@Test
+	public void testConstantFolding()
+	{
+		RuleCompiler compiler = createCompiler();
+
+		Assert.assertSame(CompiledRule.FALSE, compiler.compile(new NotRule(new AlwaysTrueRule())));
+		Assert.assertSame(CompiledRule.TRUE, compiler.compile(new FieldPredicate("category", "dogFood")));
+		Assert.assertSame(CompiledRule.FALSE, compiler.compile(new FieldPredicate("brand", "Unknown")));
+		Assert.assertSame(CompiledRule.TRUE,
+				compiler.compile(new FieldPredicate("brand", "Chef Corgi", "Happy Pup", "Dog Days")));
+		Assert.assertSame(CompiledRule.FALSE, compiler.compile(new AndRule(new FieldPredicate("flavor", "fish"),
+				new FieldPredicate("category", "catFood"))));
+
+		// a constant decides the rule even if the other side can't be compiled
+		Assert.assertSame(CompiledRule.TRUE, compiler.compile(new OrRule(new FieldPredicate("price", "10.0"),
+				new AlwaysTrueRule())));
+		Assert.assertNull(compiler.compile(new FieldPredicate("price", "10.0")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingField()
+	{
+		CompiledRule compiled = createCompiler().compile(new FieldPredicate("color", "red"));
+		compiled.matches(new int[] { 0, 0 });
+	}
+
+	@Test
+	public void testMissingFieldBeforeConstant()
+	{
+		RuleCompiler compiler = createCompiler();
+
+		// the missing field is reached before the constant decides the rule
+		CompiledRule compiled = compiler.compile(new AndRule(new FieldPredicate("color", "red"),
+				new FieldPredicate("category", "catFood")));
+		try
+		{
+			compiled.matches(new int[] { 0, 0 });
+			Assert.fail("Expected the missing field to be reported");
+		}
+		catch(IllegalArgumentException e)
+		{
+		}
+
+		// but not when the constant comes first
+		Assert.assertSame(CompiledRule.FALSE, compiler.compile(new AndRule(new FieldPredicate("category", "catFood"),
+				new FieldPredicate("color", "red"))));
+	}
+
+	@Test
+	public void testEmptyRules()
+	{
+		RuleCompiler compiler = new RuleCompiler(Collections.<String>emptyList(),
+				Collections.<List<String>>emptyList(), Collections.<String, Object>emptyMap(),
+				Collections.<String>emptySet());
+
+		Assert.assertSame(CompiledRule.TRUE, compiler.compile(new OrRule(new AlwaysTrueRule())));
+		Assert.assertSame(CompiledRule.FALSE, compiler.compile(new OrRule()));
+	}
+}
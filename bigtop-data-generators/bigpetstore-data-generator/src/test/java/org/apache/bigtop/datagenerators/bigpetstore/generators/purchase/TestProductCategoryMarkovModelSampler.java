@@ -18,6 +18,7 @@ package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -105,4 +106,52 @@ public class TestProductCategoryMarkovModelSampler
 		assertTrue(model.getTransitionWeights().size() > 0);
 	}
 
+	@Test
+	public void testTransitionWeights() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1245);
+
+		// the bag products don't all share the same fields
+		ProductCategory productCategory = createProducts().get(1);
+
+		Map<String, Double> fieldWeights = Maps.newHashMap();
+		for(String fieldName : productCategory.getFieldNames())
+		{
+			fieldWeights.put(fieldName, 1.0);
+		}
+
+		MarkovModelProductCategorySampler generator = new MarkovModelProductCategorySampler(productCategory,
+				fieldWeights, new UniformSampler(seedFactory), new UniformSampler(seedFactory));
+
+		MarkovModel<Product> model = generator.sample();
+
+		assertEquals(productCategory.getProducts().size(), model.getTransitionWeights().size());
+		for(Map<Product, Double> row : model.getTransitionWeights().values())
+		{
+			double sum = 0.0;
+			for(double weight : row.values())
+			{
+				sum += weight;
+			}
+			assertEquals(1.0, sum, 1e-9);
+		}
+	}
+
+	@Test
+	public void testPurchasingModelDeterministic() throws Exception
+	{
+		List<ProductCategory> productCategories = createProducts();
+
+		MarkovPurchasingModel model1 = new PurchasingModelSamplerBuilder(productCategories,
+				new SeedFactory(1245)).buildMarkovPurchasingModel().sample();
+		MarkovPurchasingModel model2 = new PurchasingModelSamplerBuilder(productCategories,
+				new SeedFactory(1245)).buildMarkovPurchasingModel().sample();
+
+		for(ProductCategory productCategory : productCategories)
+		{
+			String label = productCategory.getCategoryLabel();
+			assertEquals(model1.getProfile(label).getTransitionWeights(),
+					model2.getProfile(label).getTransitionWeights());
+		}
+	}
 }
@@ -15,6 +15,7 @@
  */
 package org.apache.bigtop.datagenerators.bigpetstore.generators.purchase;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -97,4 +98,30 @@ public class TestPurchasingModelSampler
 		}
 	}
 
+	@Test
+	public void testMultinomialParallel() throws Exception
+	{
+		List<ProductCategory> productCategories = createProducts();
+
+		MultinomialPurchasingModelSampler sampler = new MultinomialPurchasingModelSampler(productCategories,
+				new SeedFactory(1245));
+		List<MultinomialPurchasingModel> parallel = sampler.sample(20);
+
+		sampler = new MultinomialPurchasingModelSampler(productCategories, new SeedFactory(1245));
+		assertEquals(20, parallel.size());
+		for(MultinomialPurchasingModel profile : parallel)
+		{
+			MultinomialPurchasingModel expected = sampler.sample();
+			for(ProductCategory productCategory : productCategories)
+			{
+				String label = productCategory.getCategoryLabel();
+				for(Product product : productCategory.getProducts())
+				{
+					double probability = profile.getProfile(label).probability(product);
+					assertTrue(probability > 0.0);
+					assertEquals(expected.getProfile(label).probability(product), probability, 0.0);
+				}
+			}
+		}
+	}
 }
@@ -91,4 +91,54 @@ public class TestCustomerInventory
 		assertTrue(amounts.get("dog food") > 0.0);
 	}
 
+	private ProductCategory createCategory(String label)
+	{
+		ProductCategoryBuilder builder = new ProductCategoryBuilder();
+		builder.addApplicableSpecies(PetSpecies.DOG);
+		builder.addApplicableSpecies(PetSpecies.CAT);
+		builder.setAmountUsedPetPetAverage(1.0);
+		builder.setAmountUsedPetPetVariance(1.0);
+		builder.setDailyUsageRate(2.0);
+		builder.setCategory(label);
+
+		return builder.build();
+	}
+
+	@Test
+	public void testMinExhaustionTime() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		CustomerTransactionParameters parameters = new CustomerTransactionParametersSamplerBuilder(seedFactory)
+			.build().sample();
+
+		Map<String, ProductCategoryInventory> inventories = Maps.newLinkedHashMap();
+		inventories.put("dog food", new ProductCategoryInventory(createCategory("dog food"), parameters, seedFactory));
+		inventories.put("cat food", new ProductCategoryInventory(createCategory("cat food"), parameters, seedFactory));
+
+		CustomerInventory inventory = new CustomerInventory(inventories);
+
+		assertEquals(2, inventory.size());
+		assertEquals(0, inventory.getCategoryId("dog food"));
+		assertEquals(1, inventory.getCategoryId("cat food"));
+		assertEquals(-1, inventory.getCategoryId("kitty litter"));
+		assertEquals(0.0, inventory.getMinExhaustionTime(), 0.0001);
+
+		Map<String, Object> fields = Maps.newHashMap();
+		fields.put(Constants.PRODUCT_CATEGORY, "dog food");
+		fields.put(Constants.PRODUCT_QUANTITY, 30.0);
+		inventory.simulatePurchase(1.0, new Product(fields));
+
+		// cat food is still exhausted
+		assertEquals(0.0, inventory.getMinExhaustionTime(), 0.0001);
+		assertTrue(inventory.getExhaustionTime(0) > 1.0);
+
+		fields.put(Constants.PRODUCT_CATEGORY, "cat food");
+		inventory.simulatePurchase(2.0, new Product(fields));
+
+		double expected = Math.min(inventory.getExhaustionTime(0), inventory.getExhaustionTime(1));
+		assertEquals(expected, inventory.getMinExhaustionTime(), 0.0001);
+		assertEquals(inventory.getExhaustionTimes().get("cat food"), inventory.getExhaustionTime(1), 0.0001);
+	}
+
 }
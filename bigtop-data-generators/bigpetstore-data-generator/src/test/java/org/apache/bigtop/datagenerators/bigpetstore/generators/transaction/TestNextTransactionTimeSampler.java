@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.PetSpecies;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
+import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.ProductCategoryBuilder;
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+public class TestNextTransactionTimeSampler
+{
+	private ProductCategory createCategory(String label)
+	{
+		ProductCategoryBuilder builder = new ProductCategoryBuilder();
+		builder.addApplicableSpecies(PetSpecies.DOG);
+		builder.addApplicableSpecies(PetSpecies.CAT);
+		builder.setAmountUsedPetPetAverage(1.0);
+		builder.setAmountUsedPetPetVariance(1.0);
+		builder.setDailyUsageRate(2.0);
+		builder.setCategory(label);
+
+		return builder.build();
+	}
+
+	private CustomerInventory createInventory(SeedFactory seedFactory) throws Exception
+	{
+		CustomerTransactionParameters parameters = new CustomerTransactionParametersSamplerBuilder(seedFactory)
+			.build().sample();
+
+		Map<String, ProductCategoryInventory> inventories = Maps.newLinkedHashMap();
+		inventories.put("dog food", new ProductCategoryInventory(createCategory("dog food"), parameters, seedFactory));
+		inventories.put("cat food", new ProductCategoryInventory(createCategory("cat food"), parameters, seedFactory));
+
+		CustomerInventory inventory = new CustomerInventory(inventories);
+
+		Map<String, Object> fields = Maps.newHashMap();
+		fields.put(Constants.PRODUCT_CATEGORY, "dog food");
+		fields.put(Constants.PRODUCT_QUANTITY, 100.0);
+		inventory.simulatePurchase(0.0, new Product(fields));
+
+		fields.put(Constants.PRODUCT_CATEGORY, "cat food");
+		inventory.simulatePurchase(0.0, new Product(fields));
+
+		return inventory;
+	}
+
+	@Test
+	public void testSample() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+		CustomerInventory inventory = createInventory(seedFactory);
+
+		Sampler<Double> sampler = new NextTransactionTimeSampler(inventory, 1.0 / 5.0, seedFactory);
+
+		double lastTime = 0.0;
+		for(int i = 0; i < 100; i++)
+		{
+			double time = sampler.sample();
+			assertTrue(time >= lastTime);
+			assertTrue(time <= inventory.getMinExhaustionTime());
+			lastTime = time;
+		}
+	}
+
+	@Test
+	public void testExhaustedInventory() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+		CustomerInventory inventory = createInventory(seedFactory);
+
+		Sampler<Double> sampler = new NextTransactionTimeSampler(inventory, 1.0 / 5.0, seedFactory);
+
+		// the proposals of the rejection sampler could never pass the exhausted categories
+		double time = 0.0;
+		while(time < inventory.getMinExhaustionTime())
+		{
+			time = sampler.sample();
+		}
+
+		assertEquals(inventory.getMinExhaustionTime(), sampler.sample(), 0.0001);
+	}
+
+	@Test
+	public void testMatchesRejectionSampling() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+		CustomerInventory inventory = createInventory(seedFactory);
+		double lambda = 1.0 / 5.0;
+		double lastTime = 0.5 * inventory.getMinExhaustionTime();
+
+		Random rng = new Random(seedFactory.getNextSeed());
+
+		int n = 10000;
+		double directMean = 0.0;
+		double rejectionMean = 0.0;
+		for(int i = 0; i < n; i++)
+		{
+			NextTransactionTimeSampler sampler = new NextTransactionTimeSampler(inventory, lambda, seedFactory);
+			// move the sampler past the first half of the exhaustion interval
+			double time = 0.0;
+			while(time < lastTime)
+				time = sampler.sample();
+
+			double proposedTime = -1.0;
+			while(proposedTime < time)
+			{
+				proposedTime = Double.MAX_VALUE;
+				for(int id = 0; id < inventory.size(); id++)
+				{
+					double arrivalTime = -Math.log(1.0 - rng.nextDouble()) / lambda;
+					proposedTime = Math.min(proposedTime,
+							Math.max(inventory.getExhaustionTime(id) - arrivalTime, 0.0));
+				}
+			}
+
+			directMean += (sampler.sample() - time) / n;
+			rejectionMean += (proposedTime - time) / n;
+		}
+
+		assertEquals(rejectionMean, directMean, 0.05 * rejectionMean);
+	}
+}
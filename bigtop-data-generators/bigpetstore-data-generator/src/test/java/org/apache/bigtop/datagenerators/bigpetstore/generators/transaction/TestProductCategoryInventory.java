@@ -21,10 +21,12 @@ import static org.junit.Assert.assertTrue;
 import java.util.Map;
 
 import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.InventoryInitialization;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.PetSpecies;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.Product;
 import org.apache.bigtop.datagenerators.bigpetstore.datamodels.inputs.ProductCategory;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.products.ProductCategoryBuilder;
+import org.apache.bigtop.datagenerators.bigpetstore.generators.products.ProductFieldValue;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.CustomerTransactionParameters;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.CustomerTransactionParametersSamplerBuilder;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.ProductCategoryInventory;
@@ -72,4 +74,47 @@ public class TestProductCategoryInventory
 		assertTrue(inventory.findRemainingAmount(1.0) > 0.0);
 	}
 
+	@Test
+	public void testSteadyState() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		ProductCategoryBuilder builder = new ProductCategoryBuilder();
+		builder.addApplicableSpecies(PetSpecies.DOG);
+		builder.setCategory("dog food");
+		builder.setAmountUsedPetPetAverage(1.0);
+		builder.setAmountUsedPetPetVariance(1.0);
+		builder.setDailyUsageRate(2.0);
+		builder.addPropertyValues(Constants.PRODUCT_QUANTITY,
+				new ProductFieldValue(10.0, 0.0, 10.0),
+				new ProductFieldValue(30.0, 0.0, 30.0));
+		ProductCategory category = builder.build();
+		assertEquals(20.0, category.getAverageQuantity(), 0.0001);
+
+		Sampler<CustomerTransactionParameters> parametersSampler =
+				new CustomerTransactionParametersSamplerBuilder(seedFactory).build();
+
+		double totalRemaining = 0.0;
+		int n = 0;
+		while(n < 200)
+		{
+			CustomerTransactionParameters parameters = parametersSampler.sample();
+			if(parameters.countPetsBySpecies(category.getApplicableSpecies()) == 0)
+				continue;
+			n++;
+
+			ProductCategoryInventory inventory = new ProductCategoryInventory(category, parameters,
+					InventoryInitialization.STEADY_STATE, seedFactory);
+
+			double remaining = inventory.findRemainingAmount(0.0);
+			assertTrue(remaining >= 0.0 && remaining <= 20.0);
+			assertTrue(inventory.findExhaustionTime() >= 0.0);
+			totalRemaining += remaining;
+		}
+
+		// part way through a cycle on average, neither empty nor full
+		double averageRemaining = totalRemaining / n;
+		assertTrue(averageRemaining > 5.0 && averageRemaining < 15.0);
+	}
+
 }
@@ -18,6 +18,7 @@ package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.bigtop.datagenerators.bigpetstore.Constants.UsageSimulationMode;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.ProductCategoryUsageSimulator;
 import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.ProductCategoryUsageTrajectory;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
@@ -50,4 +51,61 @@ public class TestProductCategoryUsageSimulator
 		}
 	}
 
+	@Test
+	public void testSimulateFirstPassage() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		ProductCategoryUsageSimulator simulator = new ProductCategoryUsageSimulator(2.0, 1.0, 1.0,
+				UsageSimulationMode.FIRST_PASSAGE, seedFactory);
+
+		ProductCategoryUsageTrajectory trajectory = simulator.simulate(5.0, 30.0);
+
+		assertEquals(2, trajectory.size());
+		assertEquals(0.0, trajectory.getLastAmount(), 0.0001);
+		assertTrue(trajectory.getLastTime() > 5.0);
+
+		// remaining amount is interpolated between the purchase and exhaustion
+		double midpoint = 0.5 * (5.0 + trajectory.getLastTime());
+		assertEquals(15.0, trajectory.amountAtTime(midpoint), 0.0001);
+		assertEquals(30.0, trajectory.amountAtTime(5.0), 0.0001);
+		assertEquals(0.0, trajectory.amountAtTime(trajectory.getLastTime() + 1.0), 0.0001);
+	}
+
+	@Test
+	public void testFirstPassageMatchesStepwise() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		double[][] parameters = { {2.0, 1.0, 1.0, 30.0}, {2.0, 0.25, 0.1, 4.5}, {1.0, 0.1, 0.05, 7.0} };
+
+		for(double[] p : parameters)
+		{
+			ProductCategoryUsageSimulator stepwise = new ProductCategoryUsageSimulator(p[0], p[1], p[2],
+					UsageSimulationMode.STEPWISE, seedFactory);
+			ProductCategoryUsageSimulator firstPassage = new ProductCategoryUsageSimulator(p[0], p[1], p[2],
+					UsageSimulationMode.FIRST_PASSAGE, seedFactory);
+
+			double[] stepwiseMoments = exhaustionTimeMoments(stepwise, p[3]);
+			double[] firstPassageMoments = exhaustionTimeMoments(firstPassage, p[3]);
+
+			assertEquals(stepwiseMoments[0], firstPassageMoments[0], 0.03 * stepwiseMoments[0]);
+			assertEquals(stepwiseMoments[1], firstPassageMoments[1], 0.1 * stepwiseMoments[1]);
+		}
+	}
+
+	private double[] exhaustionTimeMoments(ProductCategoryUsageSimulator simulator, double amount) throws Exception
+	{
+		int n = 5000;
+		double mean = 0.0;
+		double meanSquared = 0.0;
+		for(int i = 0; i < n; i++)
+		{
+			double time = simulator.simulate(0.0, amount).getLastTime();
+			mean += time / n;
+			meanSquared += time * time / n;
+		}
+
+		return new double[] { mean, Math.sqrt(meanSquared - mean * mean) };
+	}
 }
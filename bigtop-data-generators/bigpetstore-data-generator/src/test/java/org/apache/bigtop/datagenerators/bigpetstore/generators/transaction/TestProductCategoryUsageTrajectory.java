@@ -66,5 +66,41 @@ public class TestProductCategoryUsageTrajectory
 		assertEquals(30.0, trajectory.amountAtTime(10.0), 0.0001);
 	}
 
+	@Test
+	public void testGrowth()
+	{
+		ProductCategoryUsageTrajectory trajectory = new ProductCategoryUsageTrajectory(0.0, 1000.0);
+		for(int i = 1; i <= 1000; i++)
+		{
+			trajectory.append(i, 1000.0 - i);
+		}
+
+		assertEquals(1001, trajectory.size());
+		assertEquals(1000.0, trajectory.amountAtTime(0.0), 0.0001);
+		assertEquals(500.0, trajectory.amountAtTime(500.5), 0.0001);
+		assertEquals(0.0, trajectory.amountAtTime(2000.0), 0.0001);
+		assertEquals(0.0, trajectory.amountAtTime(-1.0), 0.0001);
+	}
 
+	@Test
+	public void testCompact()
+	{
+		ProductCategoryUsageTrajectory trajectory = new ProductCategoryUsageTrajectory(0.0, 30.0);
+		trajectory.append(1.0, 25.0);
+		trajectory.append(2.0, 25.0);
+		trajectory.append(3.0, 20.0);
+		trajectory.append(4.0, 10.0);
+		trajectory.append(5.0, 10.0);
+
+		trajectory.compact(1.5);
+
+		// (1.0, 25.0), (3.0, 20.0), (4.0, 10.0), (5.0, 10.0)
+		assertEquals(4, trajectory.size());
+		assertEquals(25.0, trajectory.amountAtTime(1.5), 0.0001);
+		assertEquals(25.0, trajectory.amountAtTime(2.5), 0.0001);
+		assertEquals(20.0, trajectory.amountAtTime(3.0), 0.0001);
+		assertEquals(10.0, trajectory.amountAtTime(4.5), 0.0001);
+		assertEquals(5.0, trajectory.getLastTime(), 0.0001);
+		assertEquals(10.0, trajectory.getLastAmount(), 0.0001);
+	}
 }
@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.NoSuchElementException;
+
+import org.apache.bigtop.datagenerators.bigpetstore.Constants;
+import org.junit.Test;
+
+public class TestTransactionIdSampler
+{
+	@Test
+	public void testSample() throws Exception
+	{
+		int customerId = Integer.MAX_VALUE;
+		TransactionIdSampler sampler = new TransactionIdSampler(customerId);
+
+		for(long i = 0; i < 100; i++)
+		{
+			long id = sampler.sample();
+			assertEquals(((long) customerId << Constants.TRANSACTION_ID_SEQUENCE_BITS) + i, id);
+			assertEquals(customerId, TransactionIdSampler.getCustomerId(id));
+			assertEquals(i, TransactionIdSampler.getSequenceNumber(id));
+		}
+	}
+
+	@Test
+	public void testCustomersDoNotOverlap() throws Exception
+	{
+		TransactionIdSampler first = new TransactionIdSampler(0);
+		TransactionIdSampler second = new TransactionIdSampler(1);
+
+		assertEquals(0L, first.sample().longValue());
+		assertEquals(1L << Constants.TRANSACTION_ID_SEQUENCE_BITS, second.sample().longValue());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testExhausted() throws Exception
+	{
+		TransactionIdSampler sampler = new TransactionIdSampler(0);
+
+		for(long i = 0; i < (1L << Constants.TRANSACTION_ID_SEQUENCE_BITS); i++)
+			sampler.sample();
+
+		sampler.sample();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCustomerId()
+	{
+		new TransactionIdSampler(-1);
+	}
+}
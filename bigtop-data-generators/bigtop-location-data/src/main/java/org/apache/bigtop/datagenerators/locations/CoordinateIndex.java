@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+
+/**
+ * Immutable static k-d tree over items with (latitude, longitude)
+ * coordinates.  Items are stored as unit vectors on the sphere; great-circle
+ * distance is monotone in the chord length between unit vectors, so
+ * nearest-neighbour and distance queries become Euclidean queries in three
+ * dimensions.  The tree is implicit: each range of the arrays is split at its
+ * median along the axis of widest spread.
+ */
+public class CoordinateIndex<T> {
+  private final T[] items;
+  private final double[][] points;
+  private final byte[] splitAxes;
+
+  @SuppressWarnings("unchecked")
+  public CoordinateIndex(Collection<? extends T> items,
+          Function<? super T, Pair<Double, Double>> coordinates) {
+    int n = items.size();
+    this.items = (T[]) items.toArray();
+    this.points = new double[n][];
+    this.splitAxes = new byte[n];
+
+    for (int i = 0; i < n; i++) {
+      Pair<Double, Double> coords = coordinates.apply(this.items[i]);
+      points[i] = Location.toUnitVector(coords.getLeft(), coords.getRight());
+    }
+
+    build(0, n);
+  }
+
+  /**
+   * @return squared chord length between unit vectors that are the given
+   *         great-circle distance in miles apart
+   */
+  static double chordSquared(double miles) {
+    double angle = Math.toRadians(miles / LocationConstants.MILES_PER_DEGREE);
+    if (angle >= Math.PI)
+      return 4.0;
+
+    return 2.0 - 2.0 * Math.cos(angle);
+  }
+
+  private static double chordSquared(double[] point, double[] query) {
+    double dx = point[0] - query[0];
+    double dy = point[1] - query[1];
+    double dz = point[2] - query[2];
+
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private void build(int low, int high) {
+    if (high - low <= 1)
+      return;
+
+    int axis = widestAxis(low, high);
+    int mid = (low + high) >>> 1;
+    select(low, high, mid, axis);
+    splitAxes[mid] = (byte) axis;
+
+    build(low, mid);
+    build(mid + 1, high);
+  }
+
+  private int widestAxis(int low, int high) {
+    int widest = 0;
+    double widestSpread = -1.0;
+    for (int axis = 0; axis < 3; axis++) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = low; i < high; i++) {
+        min = Math.min(min, points[i][axis]);
+        max = Math.max(max, points[i][axis]);
+      }
+
+      if (max - min > widestSpread) {
+        widestSpread = max - min;
+        widest = axis;
+      }
+    }
+
+    return widest;
+  }
+
+  /*
+   * Quickselect: partially orders [low, high) so that the element at k is
+   * the one that would be there if the range were sorted along the axis.
+   */
+  private void select(int low, int high, int k, int axis) {
+    int left = low;
+    int right = high - 1;
+    while (left < right) {
+      double pivot = points[(left + right) >>> 1][axis];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (points[i][axis] < pivot)
+          i++;
+        while (points[j][axis] > pivot)
+          j--;
+        if (i <= j) {
+          swap(i, j);
+          i++;
+          j--;
+        }
+      }
+
+      if (k <= j)
+        right = j;
+      else if (k >= i)
+        left = i;
+      else
+        return;
+    }
+  }
+
+  private void swap(int i, int j) {
+    T item = items[i];
+    items[i] = items[j];
+    items[j] = item;
+
+    double[] point = points[i];
+    points[i] = points[j];
+    points[j] = point;
+  }
+
+  public int size() {
+    return items.length;
+  }
+
+  /**
+   * @return item closest to the given coordinates or null if the index is
+   *         empty
+   */
+  public T nearest(Pair<Double, Double> coordinates) {
+    List<T> nearest = nearest(coordinates, 1);
+    if (nearest.isEmpty())
+      return null;
+
+    return nearest.get(0);
+  }
+
+  private static class Candidate {
+    final int index;
+    final double chord;
+
+    Candidate(int index, double chord) {
+      this.index = index;
+      this.chord = chord;
+    }
+  }
+
+  // farthest first, so the worst of the best k is at the head of the heap
+  private static final Comparator<Candidate> FARTHEST_FIRST = new Comparator<Candidate>() {
+    public int compare(Candidate a, Candidate b) {
+      return Double.compare(b.chord, a.chord);
+    }
+  };
+
+  /**
+   * @return up to k items closest to the given coordinates, closest first
+   */
+  public List<T> nearest(Pair<Double, Double> coordinates, int k) {
+    if (k <= 0 || items.length == 0)
+      return Lists.newArrayList();
+
+    double[] query = Location.toUnitVector(coordinates.getLeft(), coordinates.getRight());
+    PriorityQueue<Candidate> best = new PriorityQueue<Candidate>(
+            Math.min(k, items.length), FARTHEST_FIRST);
+    nearest(0, items.length, query, k, best);
+
+    List<Candidate> candidates = Lists.newArrayList(best);
+    Collections.sort(candidates, Collections.reverseOrder(FARTHEST_FIRST));
+
+    List<T> result = Lists.newArrayListWithCapacity(candidates.size());
+    for (Candidate candidate : candidates)
+      result.add(items[candidate.index]);
+
+    return result;
+  }
+
+  private void nearest(int low, int high, double[] query, int k,
+          PriorityQueue<Candidate> best) {
+    if (low >= high)
+      return;
+
+    int mid = (low + high) >>> 1;
+    double chord = chordSquared(points[mid], query);
+    if (best.size() < k) {
+      best.add(new Candidate(mid, chord));
+    } else if (chord < best.peek().chord) {
+      best.poll();
+      best.add(new Candidate(mid, chord));
+    }
+
+    double diff = query[splitAxes[mid]] - points[mid][splitAxes[mid]];
+    int nearLow = diff < 0.0 ? low : mid + 1;
+    int nearHigh = diff < 0.0 ? mid : high;
+    int farLow = diff < 0.0 ? mid + 1 : low;
+    int farHigh = diff < 0.0 ? high : mid;
+
+    nearest(nearLow, nearHigh, query, k, best);
+    if (best.size() < k || diff * diff < best.peek().chord)
+      nearest(farLow, farHigh, query, k, best);
+  }
+
+  /**
+   * @return items within the given great-circle distance in miles of the
+   *         given coordinates
+   */
+  public List<T> withinDistance(Pair<Double, Double> coordinates, double miles) {
+    double[] query = Location.toUnitVector(coordinates.getLeft(), coordinates.getRight());
+    List<T> result = Lists.newArrayList();
+    withinDistance(0, items.length, query, chordSquared(miles), result);
+
+    return result;
+  }
+
+  private void withinDistance(int low, int high, double[] query,
+          double maxChordSquared, List<T> result) {
+    if (low >= high)
+      return;
+
+    int mid = (low + high) >>> 1;
+    if (chordSquared(points[mid], query) <= maxChordSquared)
+      result.add(items[mid]);
+
+    double diff = query[splitAxes[mid]] - points[mid][splitAxes[mid]];
+    if (diff < 0.0) {
+      withinDistance(low, mid, query, maxChordSquared, result);
+      if (diff * diff <= maxChordSquared)
+        withinDistance(mid + 1, high, query, maxChordSquared, result);
+    } else {
+      withinDistance(mid + 1, high, query, maxChordSquared, result);
+      if (diff * diff <= maxChordSquared)
+        withinDistance(low, mid, query, maxChordSquared, result);
+    }
+  }
+}
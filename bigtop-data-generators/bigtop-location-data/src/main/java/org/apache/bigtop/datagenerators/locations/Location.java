@@ -15,6 +15,8 @@
  */
 package org.apache.bigtop.datagenerators.locations;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -29,6 +31,11 @@ public class Location implements Serializable {
   final double medianHouseholdIncome;
   final long population;
 
+  // unit vector of the coordinates on the sphere, derived from coordinates
+  transient double x;
+  transient double y;
+  transient double z;
+
   public Location(String zipcode, Pair<Double, Double> coordinates, String city,
           String state, double medianHouseholdIncome, long population) {
     this.city = city;
@@ -37,6 +44,50 @@ public class Location implements Serializable {
     this.coordinates = coordinates;
     this.medianHouseholdIncome = medianHouseholdIncome;
     this.population = population;
+
+    initUnitVector();
+  }
+
+  private void initUnitVector() {
+    double[] unitVector = toUnitVector(coordinates.getLeft(),
+            coordinates.getRight());
+    x = unitVector[0];
+    y = unitVector[1];
+    z = unitVector[2];
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException,
+          ClassNotFoundException {
+    in.defaultReadObject();
+    initUnitVector();
+  }
+
+  static double[] toUnitVector(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    double cosLat = Math.cos(lat);
+
+    return new double[] { cosLat * Math.cos(lon), cosLat * Math.sin(lon),
+        Math.sin(lat) };
+  }
+
+  /**
+   * Converts the squared chord length between two unit vectors to the
+   * great-circle distance in miles.  Unlike the arc cosine of the dot
+   * product, this stays accurate for nearby points.
+   */
+  static double chordSquaredToMiles(double chordSquared) {
+    double angle = 2.0 * Math.asin(Math.min(1.0, 0.5 * Math.sqrt(chordSquared)));
+
+    return Math.toDegrees(angle) * LocationConstants.MILES_PER_DEGREE;
+  }
+
+  private double distance(double otherX, double otherY, double otherZ) {
+    double dx = x - otherX;
+    double dy = y - otherY;
+    double dz = z - otherZ;
+
+    return chordSquaredToMiles(dx * dx + dy * dy + dz * dz);
   }
 
   public String getZipcode() {
@@ -56,28 +107,16 @@ public class Location implements Serializable {
   }
 
   public double distance(Pair<Double, Double> otherCoords) {
-    if (Math.abs(coordinates.getLeft() - otherCoords.getLeft()) < 1e-5
-            || Math.abs(coordinates.getRight() - otherCoords.getRight()) < 1e-5)
-      return 0.0;
+    double[] other = toUnitVector(otherCoords.getLeft(), otherCoords.getRight());
 
-    double dist = Math.sin(Math.toRadians(coordinates.getLeft()))
-            * Math.sin(Math.toRadians(otherCoords.getLeft()))
-            + Math.cos(Math.toRadians(coordinates.getLeft()))
-                    * Math.cos(Math.toRadians(otherCoords.getLeft()))
-                    * Math.cos(Math.toRadians(
-                            coordinates.getRight() - otherCoords.getRight()));
-    dist = Math.toDegrees(Math.acos(dist)) * 69.09;
-
-    return dist;
+    return distance(other[0], other[1], other[2]);
   }
 
   public double distance(Location other) {
     if (other.getZipcode().equals(zipcode))
       return 0.0;
 
-    Pair<Double, Double> otherCoords = other.getCoordinates();
-
-    return distance(otherCoords);
+    return distance(other.x, other.y, other.z);
   }
 
   public String getCity() {
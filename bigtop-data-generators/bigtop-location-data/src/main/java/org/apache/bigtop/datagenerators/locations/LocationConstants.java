@@ -22,4 +22,8 @@ public class LocationConstants {
   public static final File INCOMES_FILE = new File(
           "ACS_12_5YR_S1903/ACS_12_5YR_S1903_with_ann.csv");
   public static final File POPULATION_FILE = new File("population_data.csv");
+  // generated at build time from the files above
+  public static final File SNAPSHOT_FILE = new File("locations.bin");
+
+  public static final double MILES_PER_DEGREE = 69.09;
 }
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.base.Function;
+
+/**
+ * Spatial index over locations, e.g. the zipcode table returned by
+ * {@link LocationReader#readData()}.
+ */
+public class LocationIndex extends CoordinateIndex<Location> {
+  private static final Function<Location, Pair<Double, Double>> COORDINATES = new Function<Location, Pair<Double, Double>>() {
+    public Pair<Double, Double> apply(Location location) {
+      return location.getCoordinates();
+    }
+  };
+
+  public LocationIndex(Collection<Location> locations) {
+    super(locations, COORDINATES);
+  }
+
+  public Location nearest(Location location) {
+    return nearest(location.getCoordinates());
+  }
+
+  public List<Location> nearest(Location location, int k) {
+    return nearest(location.getCoordinates(), k);
+  }
+
+  public List<Location> withinDistance(Location location, double miles) {
+    return withinDistance(location.getCoordinates(), miles);
+  }
+}
@@ -18,7 +18,10 @@ package org.apache.bigtop.datagenerators.locations;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -145,7 +148,28 @@ public class LocationReader {
     return ImmutableMap.copyOf(entries);
   }
 
-  public ImmutableList<Location> readData() throws FileNotFoundException {
+  /**
+   * Reads the location table from the binary snapshot generated at build
+   * time, falling back to parsing the CSV files if there is none.
+   */
+  public ImmutableList<Location> readData() throws IOException {
+    URL snapshot = getClass().getResource(
+            "/input_data/" + LocationConstants.SNAPSHOT_FILE);
+    if (snapshot == null)
+      return readCsvData();
+
+    if ("file".equals(snapshot.getProtocol())) {
+      try {
+        return LocationSnapshot.map(new File(snapshot.toURI())).getLocations();
+      } catch (URISyntaxException e) {
+        // fall through to reading the resource as a stream
+      }
+    }
+
+    return LocationSnapshot.read(snapshot.openStream()).getLocations();
+  }
+
+  ImmutableList<Location> readCsvData() throws FileNotFoundException {
 
     ImmutableMap<String, Double> incomes = readIncomeData(
             getResource(LocationConstants.INCOMES_FILE));
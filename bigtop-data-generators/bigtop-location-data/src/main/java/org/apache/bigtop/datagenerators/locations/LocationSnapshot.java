@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compact binary snapshot of the joined location table, generated at build
+ * time so readers skip parsing and joining the CSV files.
+ *
+ * Layout (big endian):
+ *
+ * <pre>
+ * int magic, int version, int count, int index capacity
+ * double latitude[count], double longitude[count], double income[count]
+ * long population[count]
+ * int zipcode[count], int city[count], int state[count]  (string offsets)
+ * int index[capacity]  (open addressing by zipcode; record or -1)
+ * string pool  (short length followed by UTF-8 bytes)
+ * </pre>
+ *
+ * Records keep the order of the table they were written from.
+ */
+public class LocationSnapshot {
+  private static final int MAGIC = 0x42544c43;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+  private final int count;
+  private final int indexCapacity;
+
+  private final int latitudeOffset;
+  private final int longitudeOffset;
+  private final int incomeOffset;
+  private final int populationOffset;
+  private final int zipcodeOffset;
+  private final int cityOffset;
+  private final int stateOffset;
+  private final int indexOffset;
+  private final int poolOffset;
+
+  private LocationSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+      throw new IOException("Not a version " + VERSION + " location snapshot");
+
+    count = buffer.getInt(8);
+    indexCapacity = buffer.getInt(12);
+
+    latitudeOffset = HEADER_SIZE;
+    longitudeOffset = latitudeOffset + 8 * count;
+    incomeOffset = longitudeOffset + 8 * count;
+    populationOffset = incomeOffset + 8 * count;
+    zipcodeOffset = populationOffset + 8 * count;
+    cityOffset = zipcodeOffset + 4 * count;
+    stateOffset = cityOffset + 4 * count;
+    indexOffset = stateOffset + 4 * count;
+    poolOffset = indexOffset + 4 * indexCapacity;
+  }
+
+  /**
+   * Maps a snapshot file into memory.  Records are decoded on access.
+   */
+  public static LocationSnapshot map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      // the mapping stays valid after the channel is closed
+      return new LocationSnapshot(channel.map(FileChannel.MapMode.READ_ONLY,
+              0, channel.size()));
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Reads a snapshot from a stream, e.g. a resource packed in a jar, which
+   * cannot be mapped.
+   */
+  public static LocationSnapshot read(InputStream stream) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] chunk = new byte[1 << 16];
+    int read;
+    while ((read = stream.read(chunk)) != -1)
+      bytes.write(chunk, 0, read);
+    stream.close();
+
+    return new LocationSnapshot(ByteBuffer.wrap(bytes.toByteArray()));
+  }
+
+  public int size() {
+    return count;
+  }
+
+  private String readString(int offset) {
+    int position = poolOffset + offset;
+    int length = buffer.getShort(position) & 0xffff;
+
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + 2);
+    view.get(bytes);
+
+    return new String(bytes, UTF_8);
+  }
+
+  public String getZipcode(int idx) {
+    return readString(buffer.getInt(zipcodeOffset + 4 * idx));
+  }
+
+  public Location get(int idx) {
+    Pair<Double, Double> coordinates = Pair.of(
+            buffer.getDouble(latitudeOffset + 8 * idx),
+            buffer.getDouble(longitudeOffset + 8 * idx));
+
+    return new Location(getZipcode(idx), coordinates,
+            readString(buffer.getInt(cityOffset + 4 * idx)),
+            readString(buffer.getInt(stateOffset + 4 * idx)),
+            buffer.getDouble(incomeOffset + 8 * idx),
+            buffer.getLong(populationOffset + 8 * idx));
+  }
+
+  private static int slot(String zipcode, int capacity) {
+    int h = zipcode.hashCode();
+    h ^= (h >>> 16);
+
+    return h & (capacity - 1);
+  }
+
+  /**
+   * @return location with the given zipcode or null if there is none
+   */
+  public Location get(String zipcode) {
+    if (indexCapacity == 0)
+      return null;
+
+    int slot = slot(zipcode, indexCapacity);
+    while (true) {
+      int idx = buffer.getInt(indexOffset + 4 * slot);
+      if (idx == -1)
+        return null;
+      if (getZipcode(idx).equals(zipcode))
+        return get(idx);
+
+      slot = (slot + 1) & (indexCapacity - 1);
+    }
+  }
+
+  public ImmutableList<Location> getLocations() {
+    ImmutableList.Builder<Location> locations = ImmutableList.builder();
+    for (int i = 0; i < count; i++)
+      locations.add(get(i));
+
+    return locations.build();
+  }
+
+  private static int appendString(ByteArrayOutputStream pool, String value) {
+    byte[] bytes = value.getBytes(UTF_8);
+    if (bytes.length > 0xffff)
+      throw new IllegalArgumentException("String too long for snapshot: "
+              + value);
+
+    int offset = pool.size();
+    pool.write(bytes.length >>> 8);
+    pool.write(bytes.length);
+    pool.write(bytes, 0, bytes.length);
+
+    return offset;
+  }
+
+  public static void write(List<Location> locations, File file)
+          throws IOException {
+    int count = locations.size();
+
+    // keep the index at most half full
+    int capacity = Integer.highestOneBit(Math.max(1, 2 * count - 1)) << 1;
+
+    ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    int[] zipcodes = new int[count];
+    int[] cities = new int[count];
+    int[] states = new int[count];
+    int[] index = new int[capacity];
+    Arrays.fill(index, -1);
+
+    for (int i = 0; i < count; i++) {
+      Location location = locations.get(i);
+      zipcodes[i] = appendString(pool, location.getZipcode());
+      cities[i] = appendString(pool, location.getCity());
+      states[i] = appendString(pool, location.getState());
+
+      int slot = slot(location.getZipcode(), capacity);
+      while (index[slot] != -1)
+        slot = (slot + 1) & (capacity - 1);
+      index[slot] = i;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 32 * count + 12
+            * count + 4 * capacity + pool.size());
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(capacity);
+    for (Location location : locations)
+      buffer.putDouble(location.getCoordinates().getLeft());
+    for (Location location : locations)
+      buffer.putDouble(location.getCoordinates().getRight());
+    for (Location location : locations)
+      buffer.putDouble(location.getMedianHouseholdIncome());
+    for (Location location : locations)
+      buffer.putLong(location.getPopulation());
+    for (int offset : zipcodes)
+      buffer.putInt(offset);
+    for (int offset : cities)
+      buffer.putInt(offset);
+    for (int offset : states)
+      buffer.putInt(offset);
+    for (int idx : index)
+      buffer.putInt(idx);
+    buffer.put(pool.toByteArray());
+
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs())
+      throw new IOException("Could not create directory " + parent);
+
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(buffer.array());
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Writes the snapshot of the CSV location data to the given file.  Run at
+   * build time.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("Usage: java LocationSnapshot outputFile");
+      System.exit(1);
+    }
+
+    write(new LocationReader().readCsvData(), new File(args[0]));
+  }
+}
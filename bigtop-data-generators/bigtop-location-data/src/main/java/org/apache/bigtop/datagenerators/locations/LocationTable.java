@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable table of locations with their unit vectors laid out as
+ * struct-of-arrays, so distances from one origin to every location are
+ * computed in a tight loop over primitive arrays.
+ */
+public class LocationTable {
+  private final ImmutableList<Location> locations;
+  private final double[] x;
+  private final double[] y;
+  private final double[] z;
+
+  public LocationTable(Collection<Location> locations) {
+    this.locations = ImmutableList.copyOf(locations);
+
+    int n = this.locations.size();
+    x = new double[n];
+    y = new double[n];
+    z = new double[n];
+    for (int i = 0; i < n; i++) {
+      Location location = this.locations.get(i);
+      x[i] = location.x;
+      y[i] = location.y;
+      z[i] = location.z;
+    }
+  }
+
+  public int size() {
+    return x.length;
+  }
+
+  public Location get(int idx) {
+    return locations.get(idx);
+  }
+
+  public List<Location> getLocations() {
+    return locations;
+  }
+
+  /**
+   * Computes the great-circle distance in miles from the origin to every
+   * location in the table, in table order.
+   *
+   * @param out
+   *          - receives the distances; must hold at least size() entries
+   */
+  public void distances(Location origin, double[] out) {
+    int n = x.length;
+    if (out.length < n)
+      throw new IllegalArgumentException("Output array holds " + out.length
+              + " distances but the table has " + n + " locations");
+
+    double originX = origin.x;
+    double originY = origin.y;
+    double originZ = origin.z;
+
+    // squared chord lengths first; this loop has no calls and vectorizes
+    for (int i = 0; i < n; i++) {
+      double dx = x[i] - originX;
+      double dy = y[i] - originY;
+      double dz = z[i] - originZ;
+      out[i] = dx * dx + dy * dy + dz * dz;
+    }
+
+    for (int i = 0; i < n; i++) {
+      out[i] = Location.chordSquaredToMiles(out[i]);
+    }
+  }
+}
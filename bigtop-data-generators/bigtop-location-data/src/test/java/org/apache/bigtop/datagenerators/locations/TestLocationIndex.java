@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TestLocationIndex {
+
+  private List<Location> createLocations(Random rng, int count) {
+    List<Location> locations = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      double latitude = 25.0 + 24.0 * rng.nextDouble();
+      double longitude = -125.0 + 58.0 * rng.nextDouble();
+      locations.add(new Location(String.format("%05d", i),
+              Pair.of(latitude, longitude), "City", "ST", 50000.0, 1000));
+    }
+
+    return locations;
+  }
+
+  @Test
+  public void testWithinDistance() throws Exception {
+    Random rng = new Random(1234);
+    List<Location> locations = createLocations(rng, 2000);
+
+    LocationIndex index = new LocationIndex(locations);
+    assertEquals(locations.size(), index.size());
+
+    for (int i = 0; i < 20; i++) {
+      Location center = locations.get(rng.nextInt(locations.size()));
+      double radius = 500.0 * rng.nextDouble();
+
+      Set<Location> expected = Sets.newHashSet();
+      for (Location location : locations) {
+        if (location.distance(center.getCoordinates()) <= radius)
+          expected.add(location);
+      }
+
+      List<Location> found = index.withinDistance(center, radius);
+      assertEquals(expected.size(), found.size());
+      assertEquals(expected, Sets.newHashSet(found));
+      assertTrue(found.contains(center));
+    }
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    LocationIndex index = new LocationIndex(Lists.<Location> newArrayList());
+
+    assertTrue(index.withinDistance(Pair.of(40.0, -100.0), 100.0).isEmpty());
+    assertNull(index.nearest(Pair.of(40.0, -100.0)));
+  }
+
+  @Test
+  public void testNearest() throws Exception {
+    Random rng = new Random(1234);
+    List<Location> locations = createLocations(rng, 2000);
+
+    LocationIndex index = new LocationIndex(locations);
+
+    for (int i = 0; i < 20; i++) {
+      Pair<Double, Double> query = Pair.of(25.0 + 24.0 * rng.nextDouble(),
+              -125.0 + 58.0 * rng.nextDouble());
+
+      List<Double> distances = Lists.newArrayList();
+      for (Location location : locations)
+        distances.add(location.distance(query));
+      Collections.sort(distances);
+
+      assertEquals(distances.get(0), index.nearest(query).distance(query), 1e-6);
+
+      List<Location> nearest = index.nearest(query, 10);
+      assertEquals(10, nearest.size());
+      for (int j = 0; j < nearest.size(); j++)
+        assertEquals(distances.get(j), nearest.get(j).distance(query), 1e-6);
+    }
+
+    assertEquals(locations.size(), index.nearest(Pair.of(40.0, -100.0), 5000).size());
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestLocationSnapshot {
+
+  private void assertSameLocation(Location expected, Location actual) {
+    assertEquals(expected.getZipcode(), actual.getZipcode());
+    assertEquals(expected.getCoordinates(), actual.getCoordinates());
+    assertEquals(expected.getCity(), actual.getCity());
+    assertEquals(expected.getState(), actual.getState());
+    assertEquals(expected.getMedianHouseholdIncome(),
+            actual.getMedianHouseholdIncome(), 0.0);
+    assertEquals(expected.getPopulation(), actual.getPopulation());
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Random rng = new Random(1234);
+    List<Location> locations = Lists.newArrayList();
+    for (int i = 0; i < 1000; i++) {
+      locations.add(new Location(String.format("%05d", 99999 - 7 * i),
+              Pair.of(25.0 + 24.0 * rng.nextDouble(), -125.0 + 58.0 * rng.nextDouble()),
+              "City " + i, "S" + (i % 50), 1000.0 * rng.nextInt(100), rng.nextInt(100000)));
+    }
+    locations.add(new Location("00000", Pair.of(0.0, 0.0), "S\u00e3o Paulo", "", 0.0, 0));
+
+    File file = File.createTempFile("locations", ".bin");
+    file.deleteOnExit();
+    LocationSnapshot.write(locations, file);
+
+    LocationSnapshot mapped = LocationSnapshot.map(file);
+    LocationSnapshot read = LocationSnapshot.read(new FileInputStream(file));
+
+    for (LocationSnapshot snapshot : Lists.newArrayList(mapped, read)) {
+      assertEquals(locations.size(), snapshot.size());
+
+      // order is preserved
+      List<Location> loaded = snapshot.getLocations();
+      for (int i = 0; i < locations.size(); i++)
+        assertSameLocation(locations.get(i), loaded.get(i));
+
+      for (Location location : locations)
+        assertSameLocation(location, snapshot.get(location.getZipcode()));
+
+      assertNull(snapshot.get("12345"));
+    }
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    File file = File.createTempFile("locations", ".bin");
+    file.deleteOnExit();
+    LocationSnapshot.write(Lists.<Location> newArrayList(), file);
+
+    LocationSnapshot snapshot = LocationSnapshot.map(file);
+    assertEquals(0, snapshot.size());
+    assertNull(snapshot.get("12345"));
+  }
+}
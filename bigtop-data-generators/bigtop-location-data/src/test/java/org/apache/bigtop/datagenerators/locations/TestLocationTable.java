@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.locations;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestLocationTable {
+
+  @Test
+  public void testDistances() throws Exception {
+    List<Location> locations = Lists.newArrayList();
+    locations.add(new Location("85281", Pair.of(33.43, -111.93), "Tempe", "AZ", 30000.0, 100));
+    locations.add(new Location("85001", Pair.of(33.45, -112.07), "Phoenix", "AZ", 45000.0, 200));
+    locations.add(new Location("86001", Pair.of(35.20, -111.65), "Flagstaff", "AZ", 60000.0, 300));
+    locations.add(new Location("10001", Pair.of(40.75, -73.99), "New York", "NY", 70000.0, 400));
+
+    LocationTable table = new LocationTable(locations);
+    assertEquals(locations.size(), table.size());
+
+    double[] distances = new double[table.size()];
+    table.distances(locations.get(0), distances);
+
+    assertEquals(0.0, distances[0], 1e-9);
+    for (int i = 0; i < locations.size(); i++)
+      assertEquals(locations.get(0).distance(locations.get(i)), distances[i], 1e-9);
+
+    // compare against the spherical law of cosines
+    Pair<Double, Double> a = locations.get(0).getCoordinates();
+    Pair<Double, Double> b = locations.get(3).getCoordinates();
+    double cosAngle = Math.sin(Math.toRadians(a.getLeft())) * Math.sin(Math.toRadians(b.getLeft()))
+            + Math.cos(Math.toRadians(a.getLeft())) * Math.cos(Math.toRadians(b.getLeft()))
+            * Math.cos(Math.toRadians(a.getRight() - b.getRight()));
+    double expected = Math.toDegrees(Math.acos(cosAngle)) * LocationConstants.MILES_PER_DEGREE;
+    assertEquals(expected, distances[3], 1e-6);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testShortOutput() throws Exception {
+    List<Location> locations = Lists.newArrayList();
+    locations.add(new Location("85281", Pair.of(33.43, -111.93), "Tempe", "AZ", 30000.0, 100));
+
+    new LocationTable(locations).distances(locations.get(0), new double[0]);
+  }
+}
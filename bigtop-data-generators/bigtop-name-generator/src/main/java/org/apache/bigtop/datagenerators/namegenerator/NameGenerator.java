@@ -16,9 +16,8 @@
 package org.apache.bigtop.datagenerators.namegenerator;
 
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.AliasSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
-import org.apache.bigtop.datagenerators.samplers.wfs.MultinomialWF;
 import org.apache.commons.lang3.tuple.Pair;
 
 public class NameGenerator implements Sampler<Pair<String, String>>
@@ -28,10 +27,13 @@ public class NameGenerator implements Sampler<Pair<String, String>>
 
 	public NameGenerator(SeedFactory seedFactory) throws Exception
 	{
-		Names names = new NameReader().readData();
+		this(NameTables.getInstance(), seedFactory);
+	}
 
-		firstNameSampler = RouletteWheelSampler.create(new MultinomialWF<String>(names.getFirstNames()).normalize(), seedFactory);
-		lastNameSampler = RouletteWheelSampler.create(new MultinomialWF<String>(names.getLastNames()).normalize(), seedFactory);
+	public NameGenerator(NameTables tables, SeedFactory seedFactory)
+	{
+		firstNameSampler = new AliasSampler<String>(tables.getFirstNames(), seedFactory);
+		lastNameSampler = new AliasSampler<String>(tables.getLastNames(), seedFactory);
 	}
 
 	public Pair<String, String> sample() throws Exception
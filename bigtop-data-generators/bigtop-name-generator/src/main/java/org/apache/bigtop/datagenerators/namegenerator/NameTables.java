@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.namegenerator;
+
+import java.util.concurrent.Callable;
+
+import org.apache.bigtop.datagenerators.samplers.samplers.AliasTable;
+
+/**
+ * Sampling tables for first and last names.  The name data is read and the
+ * tables are built once per JVM; the tables are immutable, so every
+ * NameGenerator shares them and only carries its own random state.
+ *
+ * An application that manages the lifetime of its input data can take over
+ * the shared instance with {@link #setProvider(Callable)}.
+ */
+public class NameTables
+{
+	private static NameTables instance;
+	private static Callable<NameTables> provider;
+
+	private final AliasTable<String> firstNames;
+	private final AliasTable<String> lastNames;
+
+	public NameTables(Names names)
+	{
+		firstNames = new AliasTable<String>(names.getFirstNames());
+		lastNames = new AliasTable<String>(names.getLastNames());
+	}
+
+	/**
+	 * Routes {@link #getInstance()} to the given provider and drops the
+	 * instance loaded so far, so the provider holds the only copy.
+	 */
+	public static synchronized void setProvider(Callable<NameTables> tablesProvider)
+	{
+		provider = tablesProvider;
+		instance = null;
+	}
+
+	public static synchronized NameTables getInstance() throws Exception
+	{
+		if(provider != null)
+		{
+			return provider.call();
+		}
+
+		if(instance == null)
+		{
+			instance = new NameTables(new NameReader().readData());
+		}
+
+		return instance;
+	}
+
+	public AliasTable<String> getFirstNames()
+	{
+		return firstNames;
+	}
+
+	public AliasTable<String> getLastNames()
+	{
+		return lastNames;
+	}
+}
@@ -36,4 +36,18 @@ public class TestNameGenerator
 		Assert.assertNotNull(name.getRight());
 
 	}
+
+	@Test
+	public void testSharedTables() throws Exception
+	{
+		Assert.assertSame(NameTables.getInstance(), NameTables.getInstance());
+
+		NameGenerator first = new NameGenerator(new SeedFactory(1234));
+		NameGenerator second = new NameGenerator(new SeedFactory(1234));
+
+		for(int i = 0; i < 100; i++)
+		{
+			Assert.assertEquals(first.sample(), second.sample());
+		}
+	}
 }
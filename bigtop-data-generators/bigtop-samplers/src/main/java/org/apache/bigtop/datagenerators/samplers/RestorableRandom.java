@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * A Random whose state can be saved and restored.  It implements the same
+ * linear congruential generator and Gaussian method as java.util.Random,
+ * so it produces exactly the same numbers for the same seed, but keeps the
+ * state in fields of its own.  Unlike Random, it is not thread-safe.
+ */
+public class RestorableRandom extends Random
+{
+	private static final long serialVersionUID = 3364823140931417405L;
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	// set by setSeed() from Random's constructor, so these have no initializers
+	private long state;
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian;
+
+	public RestorableRandom(long seed)
+	{
+		super(seed);
+	}
+
+	@Override
+	public void setSeed(long seed)
+	{
+		state = (seed ^ MULTIPLIER) & MASK;
+		haveNextNextGaussian = false;
+	}
+
+	@Override
+	protected int next(int bits)
+	{
+		state = (state * MULTIPLIER + ADDEND) & MASK;
+		return (int) (state >>> (48 - bits));
+	}
+
+	@Override
+	public double nextGaussian()
+	{
+		if(haveNextNextGaussian)
+		{
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+
+		double v1, v2, s;
+		do
+		{
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		}
+		while(s >= 1 || s == 0);
+
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+
+		return v1 * multiplier;
+	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		output.writeLong(state);
+		output.writeBoolean(haveNextNextGaussian);
+		output.writeDouble(nextNextGaussian);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		state = input.readLong() & MASK;
+		haveNextNextGaussian = input.readBoolean();
+		nextNextGaussian = input.readDouble();
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Seed factory that keeps every generator it creates.  Objects built from
+ * it draw all of their randomness from those generators, so writeState()
+ * saves that randomness and readState() restores it into the same objects
+ * built again from a factory with the same seed.
+ */
+public class RestorableSeedFactory extends SeedFactory
+{
+	private final List<RestorableRandom> randoms;
+
+	public RestorableSeedFactory(long seed)
+	{
+		super(seed);
+
+		// the factory's own generator is saved too, in case objects are built later
+		RestorableRandom seeds = new RestorableRandom(seed);
+		rng = seeds;
+		randoms = Lists.newArrayList();
+		randoms.add(seeds);
+	}
+
+	@Override
+	public Random newRandom()
+	{
+		RestorableRandom random = new RestorableRandom(getNextSeed());
+		randoms.add(random);
+
+		return random;
+	}
+
+	public void writeState(DataOutput output) throws IOException
+	{
+		output.writeInt(randoms.size());
+		for(RestorableRandom random : randoms)
+			random.writeState(output);
+	}
+
+	public void readState(DataInput input) throws IOException
+	{
+		int count = input.readInt();
+		if(count != randoms.size())
+			throw new IOException("Saved state has " + count + " generators but the factory created "
+					+ randoms.size());
+
+		for(RestorableRandom random : randoms)
+			random.readState(input);
+	}
+}
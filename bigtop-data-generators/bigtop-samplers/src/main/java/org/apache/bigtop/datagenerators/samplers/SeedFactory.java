@@ -19,20 +19,50 @@ import java.util.Random;
 
 public class SeedFactory
 {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	final long seed;
 	Random rng;
 
 	public SeedFactory()
 	{
-		rng = new Random();
+		this(new Random().nextLong());
 	}
 
 	public SeedFactory(long seed)
 	{
+		this.seed = seed;
 		rng = new Random(seed);
 	}
 
+	/**
+	 * Creates an independent factory for the given stream, e.g. a customer
+	 * index.  The derived factory depends only on this factory's initial
+	 * seed and the stream, not on how many seeds have been drawn, so
+	 * separate processes can recreate the same stream.
+	 */
+	public SeedFactory derive(long stream)
+	{
+		// SplitMix64 finalizer over a Weyl sequence of the streams
+		long z = seed + (stream + 1) * GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		z = z ^ (z >>> 31);
+
+		return new SeedFactory(z);
+	}
+
 	public long getNextSeed()
 	{
 		return rng.nextLong();
 	}
+
+	/**
+	 * @return a generator seeded with the next seed.  Samplers create their
+	 *   generators here so subclasses can track them.
+	 */
+	public Random newRandom()
+	{
+		return new Random(getNextSeed());
+	}
 }
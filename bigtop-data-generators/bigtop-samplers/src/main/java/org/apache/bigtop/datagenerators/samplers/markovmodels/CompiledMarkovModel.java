@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.markovmodels;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.bigtop.datagenerators.samplers.samplers.AliasTable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable sampling tables for a {@link MarkovModel}.  States are numbered
+ * and every row of the transition matrix becomes an alias table, so a
+ * compiled model can be shared by any number of processes that each keep
+ * only their own random number generator and current state.
+ */
+public class CompiledMarkovModel<T> implements Serializable
+{
+	private static final long serialVersionUID = -4410827530318072262L;
+
+	private final ImmutableList<T> states;
+	private final AliasTable<T> startTable;
+	private final int[] startStates;
+	private final List<AliasTable<T>> transitionTables;
+	private final int[][] transitionStates;
+
+	public CompiledMarkovModel(MarkovModel<T> model)
+	{
+		Map<T, Integer> stateIndices = Maps.newLinkedHashMap();
+		for(T state : model.getStartWeights().keySet())
+			index(stateIndices, state);
+		for(Map.Entry<T, Map<T, Double>> row : model.getTransitionWeights().entrySet())
+		{
+			index(stateIndices, row.getKey());
+			for(T state : row.getValue().keySet())
+				index(stateIndices, state);
+		}
+
+		states = ImmutableList.copyOf(stateIndices.keySet());
+
+		startTable = new AliasTable<T>(model.getStartWeights());
+		startStates = toStateIndices(startTable.getDomain(), stateIndices);
+
+		transitionTables = Lists.newArrayListWithCapacity(states.size());
+		for(int i = 0; i < states.size(); i++)
+			transitionTables.add(null);
+		transitionStates = new int[states.size()][];
+		for(Map.Entry<T, Map<T, Double>> row : model.getTransitionWeights().entrySet())
+		{
+			// a state without outgoing weight fails when it is left, not before
+			if(!hasWeight(row.getValue()))
+				continue;
+
+			int state = stateIndices.get(row.getKey());
+			AliasTable<T> table = new AliasTable<T>(row.getValue());
+			transitionTables.set(state, table);
+			transitionStates[state] = toStateIndices(table.getDomain(), stateIndices);
+		}
+	}
+
+	private static <T> boolean hasWeight(Map<T, Double> weights)
+	{
+		for(Double weight : weights.values())
+		{
+			if(weight > 0.0)
+				return true;
+		}
+
+		return false;
+	}
+
+	private static <T> void index(Map<T, Integer> stateIndices, T state)
+	{
+		if(!stateIndices.containsKey(state))
+			stateIndices.put(state, stateIndices.size());
+	}
+
+	private static <T> int[] toStateIndices(List<T> domain, Map<T, Integer> stateIndices)
+	{
+		int[] indices = new int[domain.size()];
+		for(int i = 0; i < indices.length; i++)
+			indices[i] = stateIndices.get(domain.get(i));
+
+		return indices;
+	}
+
+	public int getStateCount()
+	{
+		return states.size();
+	}
+
+	public T getState(int state)
+	{
+		return states.get(state);
+	}
+
+	public int sampleStartState(Random rng)
+	{
+		return startStates[startTable.sampleIndex(rng)];
+	}
+
+	public int sampleNextState(int state, Random rng)
+	{
+		AliasTable<T> table = transitionTables.get(state);
+		if(table == null)
+			throw new IllegalStateException("No transitions out of state " + states.get(state));
+
+		return transitionStates[state][table.sampleIndex(rng)];
+	}
+}
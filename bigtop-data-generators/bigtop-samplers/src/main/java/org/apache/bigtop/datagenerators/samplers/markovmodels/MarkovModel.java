@@ -25,6 +25,8 @@ public class MarkovModel<T> implements Serializable
 	final Map<T, Map<T, Double>> transitionWeights;
 	final Map<T, Double> startWeights;
 
+	transient volatile CompiledMarkovModel<T> compiled;
+
 	public MarkovModel(Map<T, Map<T, Double>> transitionWeights, Map<T, Double> startWeights)
 	{
 		this.transitionWeights = transitionWeights;
@@ -41,6 +43,22 @@ public class MarkovModel<T> implements Serializable
 		return startWeights;
 	}
 
+	/**
+	 * @return sampling tables for this model, built on first use and shared
+	 *   afterwards
+	 */
+	public CompiledMarkovModel<T> compile()
+	{
+		CompiledMarkovModel<T> tables = compiled;
+		if(tables == null)
+		{
+			tables = new CompiledMarkovModel<T>(this);
+			compiled = tables;
+		}
+
+		return tables;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -15,38 +15,33 @@
  */
 package org.apache.bigtop.datagenerators.samplers.markovmodels;
 
-import java.util.Map;
+import java.util.Random;
 
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
-import org.apache.bigtop.datagenerators.samplers.samplers.RouletteWheelSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 
-import com.google.common.collect.ImmutableMap;
-
+/**
+ * Walks a Markov chain.  The sampling tables are compiled once per model
+ * and shared; a process holds only its generator and current state.
+ */
 public class MarkovProcess<T> implements Sampler<T>
 {
-	final ImmutableMap<T, Sampler<T>> transitionSamplers;
-	final Sampler<T> startStateSampler;
-
-	T currentState;
+	final CompiledMarkovModel<T> model;
+	final Random rng;
 
+	int currentState;
 
 	public MarkovProcess(MarkovModel<T> model, SeedFactory factory)
 	{
-		Map<T, Map<T, Double>> transitionTable = model.getTransitionWeights();
-
-		startStateSampler = RouletteWheelSampler.create(model.getStartWeights(), factory);
-
-		ImmutableMap.Builder<T, Sampler<T>> builder = ImmutableMap.builder();
-		for(Map.Entry<T, Map<T, Double>> entry : transitionTable.entrySet())
-		{
-			builder.put(entry.getKey(), RouletteWheelSampler.create(entry.getValue(), factory));
-		}
-
+		this(model.compile(), factory);
+	}
 
-		this.transitionSamplers = builder.build();
+	public MarkovProcess(CompiledMarkovModel<T> model, SeedFactory factory)
+	{
+		this.model = model;
+		this.rng = factory.newRandom();
 
-		currentState = null;
+		currentState = -1;
 	}
 
 	public static <T> MarkovProcess<T> create(MarkovModel<T> model, SeedFactory factory)
@@ -56,13 +51,27 @@ public class MarkovProcess<T> implements Sampler<T>
 
 	public T sample() throws Exception
 	{
-		if(currentState == null)
-		{
-			currentState = startStateSampler.sample();
-			return currentState;
-		}
+		if(currentState < 0)
+			currentState = model.sampleStartState(rng);
+		else
+			currentState = model.sampleNextState(currentState, rng);
+
+		return model.getState(currentState);
+	}
 
-		currentState = transitionSamplers.get(currentState).sample();
+	/**
+	 * @return index of the current state in the compiled model or -1 before the first sample
+	 */
+	public int getCurrentState()
+	{
 		return currentState;
 	}
+
+	public void setCurrentState(int currentState)
+	{
+		if(currentState < -1 || currentState >= model.getStateCount())
+			throw new IllegalArgumentException("Invalid state " + currentState + " of " + model.getStateCount());
+
+		this.currentState = currentState;
+	}
 }
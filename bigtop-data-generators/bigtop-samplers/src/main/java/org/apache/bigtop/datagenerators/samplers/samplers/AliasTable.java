@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable alias table (Walker's method, Vose's construction) for sampling
+ * from a discrete distribution in constant time.  A table holds no random
+ * state, so a single table can be shared by any number of samplers and
+ * threads.
+ */
+public class AliasTable<T> implements Serializable
+{
+	private static final long serialVersionUID = 3919828657719851304L;
+
+	private final ImmutableList<T> domain;
+	private final double[] probabilities;
+	private final int[] aliases;
+
+	public AliasTable(Map<T, Double> domainWeights)
+	{
+		int n = domainWeights.size();
+		if(n == 0)
+			throw new IllegalArgumentException("Cannot build an alias table over an empty domain");
+
+		ImmutableList.Builder<T> builder = ImmutableList.builder();
+		double[] scaled = new double[n];
+		double weightSum = 0.0;
+		int i = 0;
+		for(Map.Entry<T, Double> entry : domainWeights.entrySet())
+		{
+			if(entry.getValue() < 0.0)
+				throw new IllegalArgumentException("Weight of " + entry.getKey() + " is negative");
+
+			builder.add(entry.getKey());
+			scaled[i] = entry.getValue();
+			weightSum += entry.getValue();
+			i++;
+		}
+
+		if(weightSum <= 0.0)
+			throw new IllegalArgumentException("Weights must not all be zero");
+
+		domain = builder.build();
+		probabilities = new double[n];
+		aliases = new int[n];
+
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		for(i = 0; i < n; i++)
+		{
+			scaled[i] *= n / weightSum;
+			if(scaled[i] < 1.0)
+				small[smallCount++] = i;
+			else
+				large[largeCount++] = i;
+		}
+
+		while(smallCount > 0 && largeCount > 0)
+		{
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+			if(scaled[more] < 1.0)
+				small[smallCount++] = more;
+			else
+				large[largeCount++] = more;
+		}
+
+		// leftovers are 1 up to rounding
+		while(largeCount > 0)
+			probabilities[large[--largeCount]] = 1.0;
+		while(smallCount > 0)
+			probabilities[small[--smallCount]] = 1.0;
+	}
+
+	public int size()
+	{
+		return domain.size();
+	}
+
+	public ImmutableList<T> getDomain()
+	{
+		return domain;
+	}
+
+	/**
+	 * @return position of the sampled value in the domain
+	 */
+	public int sampleIndex(Random rng)
+	{
+		int column = rng.nextInt(probabilities.length);
+		if(rng.nextDouble() < probabilities[column])
+			return column;
+
+		return aliases[column];
+	}
+
+	public T sample(Random rng)
+	{
+		return domain.get(sampleIndex(rng));
+	}
+}
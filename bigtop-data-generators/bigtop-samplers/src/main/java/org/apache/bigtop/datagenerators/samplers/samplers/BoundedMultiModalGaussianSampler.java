@@ -33,7 +33,7 @@ public class BoundedMultiModalGaussianSampler implements Sampler<Double>
 
 	public BoundedMultiModalGaussianSampler(List<Pair<Double, Double>> distributions, double min, double max, SeedFactory seedFactory)
 	{
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 		this.distributions = ImmutableList.copyOf(distributions);
 
 		this.min = min;
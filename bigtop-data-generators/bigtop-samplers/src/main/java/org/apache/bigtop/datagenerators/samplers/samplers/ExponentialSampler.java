@@ -26,7 +26,7 @@ public class ExponentialSampler implements Sampler<Double>
 
 	public ExponentialSampler(double lambda, SeedFactory seedFactory)
 	{
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 		this.lambda = lambda;
 	}
 
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import java.util.Random;
+
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+
+/**
+ * Samples the time a drift-diffusion process takes to first travel a given
+ * distance.  The first-passage time follows an inverse Gaussian distribution
+ * with mean distance / drift and shape distance^2 / diffusion, sampled with
+ * the transformation method of Michael, Schucany, and Haas (1976).  Without
+ * diffusion, the first-passage time is deterministic.
+ */
+public class FirstPassageTimeSampler implements ConditionalSampler<Double, Double>
+{
+	final private Random rng;
+	final private double drift;
+	final private double diffusion;
+
+	public FirstPassageTimeSampler(double drift, double diffusion, SeedFactory seedFactory)
+	{
+		if(drift <= 0.0)
+			throw new IllegalArgumentException("Drift must be positive");
+		if(diffusion < 0.0)
+			throw new IllegalArgumentException("Diffusion must be non-negative");
+
+		rng = seedFactory.newRandom();
+		this.drift = drift;
+		this.diffusion = diffusion;
+	}
+
+	public Double sample(Double distance)
+	{
+		if(distance <= 0.0)
+			return 0.0;
+
+		double mean = distance / drift;
+
+		if(diffusion == 0.0)
+			return mean;
+
+		double shape = distance * distance / diffusion;
+
+		double nu = rng.nextGaussian();
+		double y = nu * nu;
+		double x = mean + mean * mean * y / (2.0 * shape) -
+				mean / (2.0 * shape) * Math.sqrt(4.0 * mean * shape * y + mean * mean * y * y);
+
+		if(rng.nextDouble() <= mean / (mean + x))
+			return x;
+
+		return mean * mean / x;
+	}
+}
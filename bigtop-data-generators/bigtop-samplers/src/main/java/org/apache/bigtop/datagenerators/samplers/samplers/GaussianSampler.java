@@ -27,7 +27,7 @@ public class GaussianSampler implements Sampler<Double>
 
 	public GaussianSampler(double mean, double std, SeedFactory seedFactory)
 	{
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 		this.mean = mean;
 		this.std = std;
 	}
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates unique ids to many threads without locking.  Callers lease
+ * blocks of consecutive ids from a shared counter with a single atomic add
+ * and then hand out the ids of their block locally, so threads only touch
+ * shared state once per block.
+ *
+ * Used directly as a Sampler, each thread draws from its own lease.  Ids
+ * are dense apart from the unused tail of each thread's last block; a
+ * single thread receives start, start + 1, ... exactly like a
+ * {@link SequenceSampler}.  {@link #newSampler()} returns a lease-backed
+ * sampler that can be confined to one worker explicitly.
+ *
+ * Leases are not serialized, so the unused tail of each lease is lost
+ * when an allocator is deserialized and the restored allocator continues
+ * after it, skipping up to the block size ids per lease.
+ */
+public class IdAllocator implements Sampler<Long>, Serializable
+{
+	private static final long serialVersionUID = 5873126470342918850L;
+
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	private final long start;
+	private final long end;
+	private final int blockSize;
+	private final AtomicLong next;
+
+	private transient volatile ThreadLocal<LeaseSampler> leases;
+
+	public IdAllocator()
+	{
+		this(0, Long.MAX_VALUE, DEFAULT_BLOCK_SIZE);
+	}
+
+	/*
+	 * end is exclusive
+	 */
+	public IdAllocator(long start, long end, int blockSize)
+	{
+		if(end < start)
+			throw new IllegalArgumentException("End (" + end + ") must not be less than start (" + start + ")");
+		if(blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive but was " + blockSize);
+
+		this.start = start;
+		this.end = end;
+		this.blockSize = blockSize;
+		this.next = new AtomicLong(start);
+	}
+
+	/**
+	 * Reserves the next block of ids.
+	 *
+	 * @return first id of the block; the block ends at the smaller of
+	 *         the returned id plus the block size and the allocator's end
+	 * @throws NoSuchElementException if every id has been leased
+	 */
+	public long lease()
+	{
+		return lease(next, start, end, blockSize);
+	}
+
+	private static long lease(AtomicLong next, long start, long end, int blockSize)
+	{
+		long blockStart = next.getAndAdd(blockSize);
+
+		// a counter that wrapped around has also run past the end
+		if(blockStart >= end || blockStart < start)
+			throw new NoSuchElementException("All ids in [" + start + ", " + end + ") have been allocated");
+
+		return blockStart;
+	}
+
+	/**
+	 * @return number of ids leased so far, including unused ids in leased blocks
+	 */
+	public long getLeased()
+	{
+		long leased = next.get() - start;
+		return leased < 0 || leased > end - start ? end - start : leased;
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
+	public Sampler<Long> newSampler()
+	{
+		return newLeaseSampler();
+	}
+
+	private ThreadLocal<LeaseSampler> getLeases()
+	{
+		ThreadLocal<LeaseSampler> local = leases;
+		if(local == null)
+		{
+			synchronized(this)
+			{
+				local = leases;
+				if(local == null)
+				{
+					local = new ThreadLocal<LeaseSampler>()
+							{
+								@Override
+								protected LeaseSampler initialValue()
+								{
+									return newLeaseSampler();
+								}
+							};
+					leases = local;
+				}
+			}
+		}
+
+		return local;
+	}
+
+	private LeaseSampler newLeaseSampler()
+	{
+		return new LeaseSampler(next, start, end, blockSize);
+	}
+
+	public long nextId()
+	{
+		return getLeases().get().nextId();
+	}
+
+	public Long sample()
+	{
+		return nextId();
+	}
+
+	/*
+	 * Holds only the shared counter and bounds, not the allocator, so the
+	 * values of a pooled thread's ThreadLocal don't keep allocators alive.
+	 */
+	private static class LeaseSampler implements Sampler<Long>
+	{
+		private final AtomicLong next;
+		private final long start;
+		private final long end;
+		private final int blockSize;
+
+		private long nextId;
+		private long blockEnd;
+
+		public LeaseSampler(AtomicLong next, long start, long end, int blockSize)
+		{
+			this.next = next;
+			this.start = start;
+			this.end = end;
+			this.blockSize = blockSize;
+		}
+
+		public long nextId()
+		{
+			if(nextId == blockEnd)
+			{
+				nextId = lease(next, start, end, blockSize);
+				blockEnd = end - nextId <= blockSize ? end : nextId + blockSize;
+			}
+
+			return nextId++;
+		}
+
+		public Long sample()
+		{
+			return nextId();
+		}
+	}
+}
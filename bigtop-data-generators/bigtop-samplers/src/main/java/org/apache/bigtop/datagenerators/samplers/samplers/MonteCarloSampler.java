@@ -34,7 +34,7 @@ public class MonteCarloSampler<T> implements Sampler<T>
 		this.acceptancePDF = acceptancePDF;
 		this.stateSampler = stateGenerator;
 
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 	}
 
 	public T sample() throws Exception
@@ -49,7 +49,7 @@ public class RouletteWheelSampler<T> implements Sampler<T>
 
 	public static <T> RouletteWheelSampler<T> createUniform(Collection<T> data, SeedFactory factory)
 	{
-		Map<T, Double> pdf = Maps.newHashMap();
+		Map<T, Double> pdf = Maps.newLinkedHashMap();
 		for(T datum : data)
 		{
 			pdf.put(datum, 1.0);
@@ -60,15 +60,16 @@ public class RouletteWheelSampler<T> implements Sampler<T>
 
 	public RouletteWheelSampler(Map<T, Double> domainWeights, SeedFactory factory)
 	{
-		this.rng = new Random(factory.getNextSeed());
+		this.rng = factory.newRandom();
 		this.wheel = this.normalize(domainWeights);
 	}
 
 	public RouletteWheelSampler(Collection<T> data, ProbabilityDensityFunction<T> pdf, SeedFactory factory)
 	{
-		this.rng = new Random(factory.getNextSeed());
+		this.rng = factory.newRandom();
 
-		Map<T, Double> domainWeights = Maps.newHashMap();
+		// keep the data's order so the wheel doesn't depend on hash codes
+		Map<T, Double> domainWeights = Maps.newLinkedHashMap();
 		for(T datum : data)
 		{
 			double prob = pdf.probability(datum);
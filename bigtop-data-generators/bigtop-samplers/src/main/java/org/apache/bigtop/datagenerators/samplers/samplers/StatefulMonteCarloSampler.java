@@ -36,7 +36,7 @@ public class StatefulMonteCarloSampler<T> implements Sampler<T>
 		this.acceptancePDF = acceptancePDF;
 		this.stateSampler = stateGenerator;
 
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 
 		this.currentState = initialState;
 	}
@@ -32,7 +32,7 @@ public class UniformIntSampler implements Sampler<Integer>
 	{
 		this.lowerbound = lowerbound;
 		this.upperbound = upperbound;
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 	}
 
 	public Integer sample()
@@ -27,14 +27,14 @@ public class UniformSampler implements Sampler<Double>
 
 	public UniformSampler(SeedFactory seedFactory)
 	{
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 		lowerbound = 0.0;
 		upperbound = 1.0;
 	}
 
 	public UniformSampler(double lowerbound, double upperbound, SeedFactory seedFactory)
 	{
-		rng = new Random(seedFactory.getNextSeed());
+		rng = seedFactory.newRandom();
 		this.lowerbound = lowerbound;
 		this.upperbound = upperbound;
 	}
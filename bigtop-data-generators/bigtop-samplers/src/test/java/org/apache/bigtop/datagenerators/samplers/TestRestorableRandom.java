@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestRestorableRandom
+{
+	@Test
+	public void testMatchesRandom() throws Exception
+	{
+		Random expected = new Random(1234);
+		Random random = new RestorableRandom(1234);
+
+		for(int i = 0; i < 1000; i++)
+		{
+			assertEquals(expected.nextInt(), random.nextInt());
+			assertEquals(expected.nextInt(17), random.nextInt(17));
+			assertEquals(expected.nextLong(), random.nextLong());
+			assertEquals(expected.nextDouble(), random.nextDouble(), 0.0);
+			assertEquals(expected.nextGaussian(), random.nextGaussian(), 0.0);
+			assertEquals(expected.nextBoolean(), random.nextBoolean());
+		}
+	}
+
+	@Test
+	public void testRestore() throws Exception
+	{
+		RestorableRandom random = new RestorableRandom(1234);
+		random.nextDouble();
+		// leaves the second of a pair of Gaussians pending
+		random.nextGaussian();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		random.writeState(new DataOutputStream(bytes));
+
+		RestorableRandom restored = new RestorableRandom(5678);
+		restored.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		for(int i = 0; i < 100; i++)
+		{
+			assertEquals(random.nextGaussian(), restored.nextGaussian(), 0.0);
+			assertEquals(random.nextLong(), restored.nextLong());
+		}
+	}
+}
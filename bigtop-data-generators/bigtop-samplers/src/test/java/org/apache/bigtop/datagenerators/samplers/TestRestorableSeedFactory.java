@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.bigtop.datagenerators.samplers.samplers.GaussianSampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
+import org.apache.bigtop.datagenerators.samplers.samplers.UniformIntSampler;
+import org.junit.Test;
+
+public class TestRestorableSeedFactory
+{
+	@Test
+	public void testMatchesSeedFactory() throws Exception
+	{
+		SeedFactory expected = new SeedFactory(1234);
+		SeedFactory seedFactory = new RestorableSeedFactory(1234);
+
+		assertEquals(expected.getNextSeed(), seedFactory.getNextSeed());
+		assertEquals(expected.newRandom().nextLong(), seedFactory.newRandom().nextLong());
+	}
+
+	@Test
+	public void testRestore() throws Exception
+	{
+		RestorableSeedFactory seedFactory = new RestorableSeedFactory(1234);
+		Sampler<Double> gaussian = new GaussianSampler(0.0, 1.0, seedFactory);
+		Sampler<Integer> uniform = new UniformIntSampler(0, 100, seedFactory);
+		for(int i = 0; i < 11; i++)
+		{
+			gaussian.sample();
+			uniform.sample();
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		seedFactory.writeState(new DataOutputStream(bytes));
+
+		RestorableSeedFactory restoredFactory = new RestorableSeedFactory(1234);
+		Sampler<Double> restoredGaussian = new GaussianSampler(0.0, 1.0, restoredFactory);
+		Sampler<Integer> restoredUniform = new UniformIntSampler(0, 100, restoredFactory);
+		restoredFactory.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		for(int i = 0; i < 100; i++)
+		{
+			assertEquals(gaussian.sample(), restoredGaussian.sample());
+			assertEquals(uniform.sample(), restoredUniform.sample());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDifferentGenerators() throws Exception
+	{
+		RestorableSeedFactory seedFactory = new RestorableSeedFactory(1234);
+		new GaussianSampler(0.0, 1.0, seedFactory);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		seedFactory.writeState(new DataOutputStream(bytes));
+
+		new RestorableSeedFactory(1234).readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+}
@@ -13,23 +13,28 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.apache.bigtop.datagenerators.bigpetstore.generators.transaction;
+package org.apache.bigtop.datagenerators.samplers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
-import org.apache.bigtop.datagenerators.bigpetstore.generators.transaction.TransactionTimePDF;
 import org.junit.Test;
 
-public class TestTransactionTimePDF
+public class TestSeedFactory
 {
 
 	@Test
-	public void testProbability() throws Exception
+	public void testDerive() throws Exception
 	{
-		TransactionTimePDF pdf = new TransactionTimePDF();
+		SeedFactory first = new SeedFactory(1234);
+		SeedFactory second = new SeedFactory(1234);
 
-		assertEquals(pdf.probability(0.5, 0.75), 0.0, 0.000001);
-		assertEquals(pdf.probability(0.5, 0.5), 1.0, 0.000001);
-		assertEquals(pdf.probability(0.75, 0.5), 1.0, 0.000001);
+		// draws from the parent do not change the derived streams
+		second.getNextSeed();
+		second.getNextSeed();
+
+		assertEquals(first.derive(7).getNextSeed(), second.derive(7).getNextSeed());
+		assertTrue(first.derive(7).getNextSeed() != first.derive(8).getNextSeed());
+		assertTrue(first.derive(7).getNextSeed() != new SeedFactory(1235).derive(7).getNextSeed());
 	}
 }
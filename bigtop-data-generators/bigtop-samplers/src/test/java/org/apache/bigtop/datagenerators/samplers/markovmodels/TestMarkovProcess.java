@@ -16,10 +16,12 @@
 package org.apache.bigtop.datagenerators.samplers.markovmodels;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.matchers.JUnitMatchers.hasItem;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.markovmodels.MarkovModel;
@@ -27,6 +29,8 @@ import org.apache.bigtop.datagenerators.samplers.markovmodels.MarkovModelBuilder
 import org.apache.bigtop.datagenerators.samplers.markovmodels.MarkovProcess;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class TestMarkovProcess
 {
 
@@ -50,4 +54,37 @@ public class TestMarkovProcess
 		assertThat(Arrays.asList("b", "c"), hasItem(secondState));
 	}
 
+	@Test
+	public void testSharedTables() throws Exception
+	{
+		MarkovModelBuilder<String> builder = MarkovModelBuilder.create();
+
+		builder.addStartState("a", 1.0);
+		builder.addTransition("a", "b", 1.0);
+		builder.addTransition("b", "a", 0.5);
+		builder.addTransition("b", "c", 0.5);
+		builder.addTransition("c", "a", 1.0);
+
+		MarkovModel<String> msm = builder.build();
+		assertSame(msm.compile(), msm.compile());
+
+		MarkovProcess<String> process1 = MarkovProcess.create(msm, new SeedFactory(1245));
+		MarkovProcess<String> process2 = MarkovProcess.create(msm, new SeedFactory(1245));
+
+		List<String> states = Lists.newArrayList();
+		String previous = null;
+		for(int i = 0; i < 100; i++)
+		{
+			String state = process1.sample();
+			assertEquals(state, process2.sample());
+
+			// only transitions with weight are taken
+			if(previous != null)
+				assertThat(msm.getTransitionWeights().get(previous).keySet(), hasItem(state));
+			previous = state;
+			states.add(state);
+		}
+
+		assertThat(states, hasItem("c"));
+	}
 }
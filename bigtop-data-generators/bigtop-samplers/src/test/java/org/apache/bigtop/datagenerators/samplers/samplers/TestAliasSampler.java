@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+public class TestAliasSampler
+{
+
+	@Test
+	public void testSample() throws Exception
+	{
+		Map<String, Double> dataPoints = ImmutableMap.of(
+				"a", 1.0,
+				"b", 2.0,
+				"c", 3.0,
+				"d", 0.0,
+				"e", 4.0
+				);
+
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		AliasTable<String> table = new AliasTable<String>(dataPoints);
+		assertEquals(5, table.size());
+
+		Sampler<String> sampler = new AliasSampler<String>(table, seedFactory);
+
+		int n = 100000;
+		Map<String, Integer> counts = Maps.newHashMap();
+		for(String key : dataPoints.keySet())
+			counts.put(key, 0);
+		for(int i = 0; i < n; i++)
+		{
+			String result = sampler.sample();
+			counts.put(result, counts.get(result) + 1);
+		}
+
+		for(Map.Entry<String, Double> entry : dataPoints.entrySet())
+		{
+			assertEquals(entry.getValue() / 10.0, counts.get(entry.getKey()) / (double) n, 0.01);
+		}
+		assertEquals(0, (int) counts.get("d"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmpty() throws Exception
+	{
+		new AliasTable<String>(ImmutableMap.<String, Double> of());
+	}
+}
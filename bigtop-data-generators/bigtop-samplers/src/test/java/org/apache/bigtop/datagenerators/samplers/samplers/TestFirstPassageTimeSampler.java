@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.bigtop.datagenerators.samplers.SeedFactory;
+import org.junit.Test;
+
+public class TestFirstPassageTimeSampler
+{
+
+	@Test
+	public void testSample() throws Exception
+	{
+		SeedFactory seedFactory = new SeedFactory(1234);
+
+		ConditionalSampler<Double, Double> sampler = new FirstPassageTimeSampler(2.0, 1.0, seedFactory);
+
+		int n = 10000;
+		double mean = 0.0;
+		for(int i = 0; i < n; i++)
+		{
+			double result = sampler.sample(10.0);
+			assertTrue(result > 0.0);
+			mean += result / n;
+		}
+
+		// mean of the inverse Gaussian is distance / drift
+		assertEquals(5.0, mean, 0.05);
+
+		assertEquals(0.0, sampler.sample(0.0), 0.0);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bigtop.datagenerators.samplers.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TestIdAllocator
+{
+	@Test
+	public void testSequential() throws Exception
+	{
+		Sampler<Long> sampler = new IdAllocator(5, 100, 8);
+
+		for(long i = 5; i < 100; i++)
+		{
+			assertEquals(i, sampler.sample().longValue());
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testExhausted() throws Exception
+	{
+		Sampler<Long> sampler = new IdAllocator(0, 10, 4).newSampler();
+
+		for(int i = 0; i < 11; i++)
+			sampler.sample();
+	}
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		IdAllocator allocator = new IdAllocator(0, 100, 8);
+		for(long i = 0; i < 3; i++)
+			assertEquals(i, allocator.nextId());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(bytes);
+		output.writeObject(allocator);
+		output.close();
+
+		IdAllocator restored = (IdAllocator) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+		// the rest of the leased block is skipped
+		assertEquals(8L, restored.nextId());
+	}
+
+	@Test
+	public void testConcurrent() throws Exception
+	{
+		final int nThreads = 8;
+		final int nIds = 10000;
+		final IdAllocator allocator = new IdAllocator(0, Long.MAX_VALUE, 100);
+		final Set<Long> ids = Sets.newConcurrentHashSet();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = Lists.newArrayList();
+		for(int i = 0; i < nThreads; i++)
+		{
+			Thread thread = new Thread()
+					{
+						public void run()
+						{
+							try
+							{
+								start.await();
+								for(int j = 0; j < nIds; j++)
+									ids.add(allocator.sample());
+							}
+							catch(InterruptedException e)
+							{
+								throw new RuntimeException(e);
+							}
+						}
+					};
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for(Thread thread : threads)
+			thread.join();
+
+		assertEquals(nThreads * nIds, ids.size());
+		// at most one partially used block per thread
+		assertTrue(allocator.getLeased() <= nThreads * nIds + nThreads * allocator.getBlockSize());
+		for(Long id : ids)
+			assertTrue(id < allocator.getLeased());
+	}
+}
@@ -17,6 +17,7 @@ package org.apache.bigtop.datagenerators.weatherman;
 
 import java.util.List;
 
+import org.apache.bigtop.datagenerators.locations.CoordinateIndex;
 import org.apache.bigtop.datagenerators.locations.Location;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
@@ -32,8 +33,22 @@ import org.joda.time.LocalDate;
  *
  */
 public class WeatherGenerator implements Sampler<WeatherRecord> {
+  // weather station parameters are read once per JVM and shared
+  private static CoordinateIndex<WeatherStationParameters> stations;
+
   private final Sampler<WeatherRecord> weatherSampler;
 
+  private static synchronized CoordinateIndex<WeatherStationParameters> getStations()
+          throws Exception {
+    if (stations == null) {
+      List<WeatherStationParameters> parameters = new WeatherParametersReader()
+              .readParameters();
+      stations = WeatherSamplerBuilder.buildIndex(parameters);
+    }
+
+    return stations;
+  }
+
   /**
    * Initializes the generator.
    *
@@ -48,9 +63,7 @@ public class WeatherGenerator implements Sampler<WeatherRecord> {
    */
   public WeatherGenerator(LocalDate startDate, Location location,
           SeedFactory seedFactory) throws Exception {
-    List<WeatherStationParameters> parameters = new WeatherParametersReader()
-            .readParameters();
-    WeatherSamplerBuilder builder = new WeatherSamplerBuilder(parameters,
+    WeatherSamplerBuilder builder = new WeatherSamplerBuilder(getStations(),
             location, startDate, seedFactory);
     weatherSampler = builder.build();
   }
@@ -17,13 +17,17 @@ package org.apache.bigtop.datagenerators.weatherman.internal;
 
 import java.util.Collection;
 
+import org.apache.bigtop.datagenerators.locations.CoordinateIndex;
 import org.apache.bigtop.datagenerators.locations.Location;
 import org.apache.bigtop.datagenerators.samplers.SeedFactory;
 import org.apache.bigtop.datagenerators.samplers.samplers.ConditionalSampler;
 import org.apache.bigtop.datagenerators.samplers.samplers.Sampler;
 import org.apache.bigtop.datagenerators.weatherman.WeatherRecord;
+import org.apache.commons.lang3.tuple.Pair;
 import org.joda.time.LocalDate;
 
+import com.google.common.base.Function;
+
 public class WeatherSamplerBuilder {
 
   private final WeatherStationParameters parameters;
@@ -33,26 +37,27 @@ public class WeatherSamplerBuilder {
   public WeatherSamplerBuilder(
           Collection<WeatherStationParameters> weatherParameters,
           Location location, LocalDate startDate, SeedFactory seedFactory) {
-    parameters = findClosest(weatherParameters, location);
+    this(buildIndex(weatherParameters), location,
+            startDate, seedFactory);
+  }
+
+  public WeatherSamplerBuilder(
+          CoordinateIndex<WeatherStationParameters> weatherParameters,
+          Location location, LocalDate startDate, SeedFactory seedFactory) {
+    parameters = weatherParameters.nearest(location.getCoordinates());
     this.seedFactory = seedFactory;
     this.startDate = startDate;
   }
 
-  private WeatherStationParameters findClosest(
-          Collection<WeatherStationParameters> weatherParameters,
-          Location location) {
-    WeatherStationParameters closestStation = null;
-    double minDist = Double.MAX_VALUE;
-
-    for (WeatherStationParameters parameters : weatherParameters) {
-      double dist = location.distance(parameters.getCoordinates());
-      if (dist < minDist) {
-        minDist = dist;
-        closestStation = parameters;
-      }
-    }
-
-    return closestStation;
+  public static CoordinateIndex<WeatherStationParameters> buildIndex(
+          Collection<WeatherStationParameters> weatherParameters) {
+    return new CoordinateIndex<WeatherStationParameters>(weatherParameters,
+            new Function<WeatherStationParameters, Pair<Double, Double>>() {
+              public Pair<Double, Double> apply(
+                      WeatherStationParameters parameters) {
+                return parameters.getCoordinates();
+              }
+            });
   }
 
   private ConditionalSampler<WeatherRecordBuilder, WeatherRecordBuilder> buildTempSampler() {